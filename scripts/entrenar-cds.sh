@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Genera el archivo AppCDS (target/literalura.jsa) con una corrida de entrenamiento: la aplicación arranca con
+# AOT, conecta a la base (DB_URL), termina en cuanto el contexto de Spring está listo y la JVM vuelca las
+# clases cargadas. Requiere haber construido antes con: mvn -Parranque-rapido -DskipTests package
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAR=$(ls target/literalura-*.jar | grep -v benchmarks | head -n 1)
+ARCHIVO=${ARCHIVO_CDS:-target/literalura.jsa}
+
+# El archivo sólo sirve con el mismo classpath y la misma JVM con que se generó: se regenera tras cada build
+java -XX:ArchiveClassesAtExit="$ARCHIVO" -Xlog:cds=error \
+     -Dspring.aot.enabled=true \
+     -Dspring.context.exit=onRefresh \
+     -jar "$JAR" --spring.output.ansi.enabled=NEVER "$@"
+
+echo "Archivo CDS: $ARCHIVO ($(du -h "$ARCHIVO" | cut -f1))"
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Tiempo hasta el primer menú (desde que se lanza la JVM hasta que se imprime "0) Salir"), en varios modos:
+#   anterior  esquema con ddl-auto=update y sin Flyway, como arrancaba la aplicación antes de las migraciones
+#   validar   migraciones de Flyway + ddl-auto=validate
+#   aot       lo anterior con el contexto de Spring pre-procesado (spring.aot.enabled)
+#   aot-cds   lo anterior con el archivo AppCDS de scripts/entrenar-cds.sh
+# Uso: scripts/tiempo-arranque.sh [corridas] [modos...]    (por defecto 5 corridas, todos los modos)
+# Cada corrida se agrega a target/arranque.csv; al final se muestra la mediana por modo.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+CORRIDAS=${1:-5}
+shift || true
+MODOS=("${@:-anterior validar aot aot-cds}")
+MODOS=(${MODOS[*]})
+
+JAR=$(ls target/literalura-*.jar | grep -v benchmarks | head -n 1)
+CDS=${ARCHIVO_CDS:-target/literalura.jsa}
+CSV=target/arranque.csv
+[ -f "$CSV" ] || echo "fecha,modo,corrida,ms" > "$CSV"
+
+opciones() {
+    case "$1" in
+        anterior) echo "-jar $JAR --spring.flyway.enabled=false --spring.jpa.hibernate.ddl-auto=update" ;;
+        validar)  echo "-jar $JAR" ;;
+        aot)      echo "-Dspring.aot.enabled=true -jar $JAR" ;;
+        aot-cds)  echo "-XX:SharedArchiveFile=$CDS -Xshare:auto -Dspring.aot.enabled=true -jar $JAR" ;;
+        *) echo "Modo desconocido: $1" >&2; exit 1 ;;
+    esac
+}
+
+# Milisegundos hasta que aparece el menú; la opción 0 ya está en la entrada, así que la aplicación sale sola
+medir() {
+    local inicio linea
+    inicio=$(date +%s%N)
+    # shellcheck disable=SC2046
+    printf '0\n' | java $(opciones "$1") --spring.output.ansi.enabled=NEVER --logging.level.root=WARN 2>/dev/null |
+        while IFS= read -r linea; do
+            if [[ "$linea" == *"0) Salir"* ]]; then
+                echo $(( ($(date +%s%N) - inicio) / 1000000 ))
+            fi
+        done
+}
+
+if [[ " ${MODOS[*]} " == *" aot-cds "* && ! -f "$CDS" ]]; then
+    echo "No existe $CDS: ejecuta antes scripts/entrenar-cds.sh" >&2
+    exit 1
+fi
+
+fecha=$(date -u +%Y-%m-%dT%H:%M:%SZ)
+for modo in "${MODOS[@]}"; do
+    medir "$modo" > /dev/null # calentamiento del sistema de archivos y de la base
+    tiempos=()
+    for ((i = 1; i <= CORRIDAS; i++)); do
+        ms=$(medir "$modo")
+        [ -n "$ms" ] || { echo "El modo $modo no llegó al menú" >&2; exit 1; }
+        tiempos+=("$ms")
+        echo "$fecha,$modo,$i,$ms" >> "$CSV"
+    done
+    mediana=$(printf '%s\n' "${tiempos[@]}" | sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }')
+    printf '%-9s mediana %6d ms   (%s)\n' "$modo" "$mediana" "${tiempos[*]}"
+done
@@ -0,0 +1,137 @@
+package com.literalura.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.literalura.service.ApiClient;
+import com.literalura.service.RespuestaCache;
+import com.literalura.service.dto.ApiResponseDTO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ApiClient de punta a punta (HttpClient, conteo de bytes, gzip y decodificación) contra un servidor local
+ * con una página de Gutendex fija, sin caché ni límite de tasa: mide el costo por respuesta del cliente, no la red.
+ * 'gzip' elige si el servidor comprime (como Gutendex, sólo si el cliente lo pide) o responde el JSON plano.
+ * Los métodos '*Anterior' son la línea base: el cliente de antes (RestTemplate, cuerpo leído a un String y
+ * ObjectMapper a los DTO mutables) contra el mismo servidor.
+ * Memoria por respuesta: {@code ApiClientBenchmark -prof gc} (gc.alloc.rate.norm, nuevo contra anterior).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Sin TCP_NODELAY el servidor del JDK envía encabezados y cuerpo en segmentos separados y cada respuesta
+// espera el ACK diferido del cliente (~40 ms): se mediría eso y no el cliente
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class ApiClientBenchmark {
+
+    @Param("32")
+    public int librosPorPagina;
+
+    @Param({"true", "false"})
+    public boolean gzip;
+
+    private HttpServer servidor;
+    private ExecutorService hilosServidor;
+    private ApiClient cliente;
+    private String base;
+    private RestTemplate restTemplate;
+    private ObjectMapper mapper;
+    private final HttpHeaders cabeceras = new HttpHeaders();
+
+    @Setup
+    public void iniciar() throws IOException {
+        byte[] json = JsonBenchmark.paginaGutendex(librosPorPagina).getBytes(StandardCharsets.UTF_8);
+        byte[] cuerpo = gzip ? comprimir(json) : json;
+
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/books", intercambio -> responder(intercambio, json, cuerpo));
+        hilosServidor = Executors.newFixedThreadPool(2);
+        servidor.setExecutor(hilosServidor);
+        servidor.start();
+
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/books";
+        // Caché apagada (0 entradas), sin límite de tasa (0) y sin reintentos: cada llamada es una petición HTTP
+        cliente = new ApiClient(new RespuestaCache(0, 0, Duration.ofMinutes(10), ""), new SimpleMeterRegistry(),
+                base, 0, 1, 0, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(5),
+                3, Duration.ofSeconds(30));
+
+        // Igual que el ApiClient anterior: HttpURLConnection, sin Accept-Encoding y Jackson sobre el texto
+        SimpleClientHttpRequestFactory fabrica = new SimpleClientHttpRequestFactory();
+        fabrica.setConnectTimeout((int) Duration.ofSeconds(5).toMillis());
+        fabrica.setReadTimeout((int) Duration.ofSeconds(5).toMillis());
+        restTemplate = new RestTemplate(fabrica);
+        mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        cabeceras.add(HttpHeaders.USER_AGENT, "Literalura/1.0 (+https://example.invalid)");
+    }
+
+    @TearDown
+    public void cerrar() {
+        servidor.stop(0);
+        hilosServidor.shutdownNow();
+    }
+
+    @Benchmark
+    public ApiResponseDTO paginaCatalogo() {
+        return cliente.paginaCatalogo(1);
+    }
+
+    @Benchmark
+    public ApiResponseDTO busqueda() {
+        return cliente.searchBooks("Pride and Prejudice");
+    }
+
+    @Benchmark
+    public DtosAnteriores.ApiResponseDTO paginaCatalogoAnterior() throws IOException {
+        return getAnterior(base + "/?sort=ascending&page=1");
+    }
+
+    private DtosAnteriores.ApiResponseDTO getAnterior(String url) throws IOException {
+        RequestEntity<Void> req = RequestEntity.get(URI.create(url)).headers(cabeceras).build();
+        String cuerpo = restTemplate.exchange(req, String.class).getBody();
+        return mapper.readValue(cuerpo, DtosAnteriores.ApiResponseDTO.class);
+    }
+
+    private void responder(HttpExchange intercambio, byte[] json, byte[] cuerpo) throws IOException {
+        try (intercambio) {
+            intercambio.getRequestBody().readAllBytes();
+            intercambio.getResponseHeaders().set("Content-Type", "application/json");
+            String aceptadas = intercambio.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean comprimida = gzip && aceptadas != null && aceptadas.contains("gzip");
+            byte[] respuesta = comprimida ? cuerpo : json;
+            if (comprimida) intercambio.getResponseHeaders().set("Content-Encoding", "gzip");
+            intercambio.sendResponseHeaders(200, respuesta.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(respuesta);
+            }
+        }
+    }
+
+    private static byte[] comprimir(byte[] datos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(datos.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            gz.write(datos);
+        }
+        return bytes.toByteArray();
+    }
+}
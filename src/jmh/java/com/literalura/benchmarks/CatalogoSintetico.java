@@ -0,0 +1,58 @@
+package com.literalura.benchmarks;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Catálogo sintético determinista: mismos datos en cada corrida para un tamaño dado.
+ * Todo se genera en SQL (generate_series) con aritmética fija, sin random(), y termina con ANALYZE
+ * para que el planificador parta siempre de las mismas estadísticas.
+ */
+final class CatalogoSintetico {
+
+    // Palabras de los títulos: la búsqueda por título usa estas mismas
+    static final String[] PALABRAS = {
+            "pride", "war", "peace", "ocean", "garden", "night", "river", "mountain",
+            "letters", "memoirs", "history", "voyage", "island", "winter", "crown", "shadow"
+    };
+
+    static final String[] IDIOMAS = {"en", "en", "en", "en", "en", "en", "fr", "de", "es", "it"};
+
+    private CatalogoSintetico() {}
+
+    static void sembrar(JdbcTemplate jdbc, int libros, int autores) {
+        jdbc.update("""
+                insert into autores (id, nombre, anio_nacimiento, anio_fallecimiento)
+                select g, 'Autor sintético ' || g,
+                       1500 + (g * 37) % 450,
+                       case when g % 10 = 0 then null else 1500 + (g * 37) % 450 + 30 + g % 60 end
+                from generate_series(1, ?) g
+                """, autores);
+
+        jdbc.update("""
+                insert into libros (id, gutenberg_id, titulo, idioma, descargas, autor_id)
+                select g, g,
+                       initcap((?::text[])[1 + g % 16]) || ' ' || (?::text[])[1 + (g / 16) % 16] || ' ' || g,
+                       (?::text[])[1 + (g * 7) % 10],
+                       ((g::bigint * 2654435761) % 100003)::int,
+                       1 + (g * 7) % ?
+                from generate_series(1, ?) g
+                """, arreglo(PALABRAS), arreglo(PALABRAS), arreglo(IDIOMAS), autores, libros);
+
+        // Uno de cada diez libros tiene un segundo autor
+        jdbc.update("insert into libro_autores (libro_id, autor_id, posicion) select id, autor_id, 0 from libros");
+        jdbc.update("""
+                insert into libro_autores (libro_id, autor_id, posicion)
+                select id, 1 + (autor_id % ?), 1 from libros where id % 10 = 0 and 1 + (autor_id % ?) <> autor_id
+                """, autores, autores);
+        jdbc.update("insert into libro_idiomas (libro_id, idioma, posicion) select id, idioma, 0 from libros");
+
+        // Las secuencias siguen después de los ids sembrados
+        jdbc.queryForObject("select setval('autores_seq', (select max(id) + 1 from autores))", Long.class);
+        jdbc.queryForObject("select setval('libros_seq', (select max(id) + 1 from libros))", Long.class);
+        jdbc.execute("analyze");
+    }
+
+    private static String arreglo(String[] valores) {
+        return "{" + String.join(",", valores) + "}";
+    }
+}
@@ -0,0 +1,74 @@
+package com.literalura.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Copia de los DTO mutables que se usaban antes de DecodificadorGutendex, sólo como línea base de JsonBenchmark.
+ */
+final class DtosAnteriores {
+
+    private DtosAnteriores() {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ApiResponseDTO {
+        private int count;
+        private String next;
+        private String previous;
+        private List<ApiBookDTO> results;
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+
+        public String getNext() { return next; }
+        public void setNext(String next) { this.next = next; }
+
+        public String getPrevious() { return previous; }
+        public void setPrevious(String previous) { this.previous = previous; }
+
+        public List<ApiBookDTO> getResults() { return results; }
+        public void setResults(List<ApiBookDTO> results) { this.results = results; }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ApiBookDTO {
+        private Integer id;
+        private String title;
+        private List<ApiAuthorDTO> authors;
+        private List<String> languages;
+        private Integer download_count;
+
+        public Integer getId() { return id; }
+        public void setId(Integer id) { this.id = id; }
+
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+
+        public List<ApiAuthorDTO> getAuthors() { return authors; }
+        public void setAuthors(List<ApiAuthorDTO> authors) { this.authors = authors; }
+
+        public List<String> getLanguages() { return languages; }
+        public void setLanguages(List<String> languages) { this.languages = languages; }
+
+        public Integer getDownload_count() { return download_count; }
+        public void setDownload_count(Integer download_count) { this.download_count = download_count; }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ApiAuthorDTO {
+        private String name;
+        private Integer birth_year;
+        private Integer death_year;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Integer getBirth_year() { return birth_year; }
+        public void setBirth_year(Integer birth_year) { this.birth_year = birth_year; }
+
+        public Integer getDeath_year() { return death_year; }
+        public void setDeath_year(Integer death_year) { this.death_year = death_year; }
+    }
+}
@@ -0,0 +1,71 @@
+package com.literalura.benchmarks;
+
+import com.literalura.LiteraluraApplication;
+import com.literalura.repository.AutorRepository;
+import com.literalura.repository.LibroRepository;
+import com.literalura.service.LiteraluraService;
+import com.literalura.service.TablaPosiciones;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * PostgreSQL embebido (versión fija) con el contexto de Spring de la aplicación y un catálogo sintético.
+ * Se crea una vez por fork: cada corrida parte de una base nueva con los mismos datos.
+ */
+@State(Scope.Benchmark)
+public class EstadoCatalogo {
+
+    @Param("100000")
+    public int libros;
+
+    @Param("5000")
+    public int autores;
+
+    EmbeddedPostgres postgres;
+    ConfigurableApplicationContext contexto;
+    LiteraluraService service;
+    LibroRepository libroRepository;
+    AutorRepository autorRepository;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        // Como argumentos de línea de comandos: así pisan a application.properties
+        String[] args = Map.of(
+                        "spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username", "postgres",
+                        "spring.datasource.password", "",
+                        "literalura.consola.habilitada", "false",
+                        // Nada sale a la red: si un benchmark llegara a la API, falla en lugar de medir Gutendex
+                        "literalura.api.base-url", "http://127.0.0.1:9/books",
+                        "literalura.api.reintentos", "0",
+                        "spring.output.ansi.enabled", "NEVER",
+                        "logging.level.root", "WARN")
+                .entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        contexto = new SpringApplicationBuilder(LiteraluraApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+
+        CatalogoSintetico.sembrar(contexto.getBean(JdbcTemplate.class), libros, autores);
+        contexto.getBean(TablaPosiciones.class).reconstruirTodo();
+
+        service = contexto.getBean(LiteraluraService.class);
+        libroRepository = contexto.getBean(LibroRepository.class);
+        autorRepository = contexto.getBean(AutorRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        if (contexto != null) contexto.close();
+        if (postgres != null) postgres.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.literalura.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.literalura.service.dto.ApiResponseDTO;
+import com.literalura.service.dto.DecodificadorGutendex;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación de una página de Gutendex.
+ * 'beansDesdeTexto' es el camino anterior de ApiClient (cuerpo como String y mapper.readValue a los DTO mutables);
+ * 'beansDesdeBytes' separa el costo del String; 'decodificador' es el camino actual.
+ * El JSON imita la forma real (formats, subjects, bookshelves…) para que los campos ignorados también cuenten.
+ * La memoria por página sale con el perfilador de GC: {@code JsonBenchmark -prof gc} (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param("32")
+    public int librosPorPagina;
+
+    private ObjectMapper mapper;
+    private DecodificadorGutendex decodificador;
+    private byte[] pagina;
+
+    @Setup
+    public void preparar() {
+        mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        decodificador = new DecodificadorGutendex();
+        pagina = paginaGutendex(librosPorPagina).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public DtosAnteriores.ApiResponseDTO beansDesdeTexto() throws IOException {
+        String cuerpo = new String(pagina, StandardCharsets.UTF_8); // lo que hacía BodyHandlers.ofString()
+        return mapper.readValue(cuerpo, DtosAnteriores.ApiResponseDTO.class);
+    }
+
+    @Benchmark
+    public DtosAnteriores.ApiResponseDTO beansDesdeBytes() throws IOException {
+        return mapper.readValue(pagina, DtosAnteriores.ApiResponseDTO.class);
+    }
+
+    @Benchmark
+    public ApiResponseDTO decodificador() throws IOException {
+        return decodificador.pagina(pagina);
+    }
+
+    static String paginaGutendex(int n) {
+        StringBuilder sb = new StringBuilder(n * 1500);
+        sb.append("{\"count\":").append(n * 100)
+          .append(",\"next\":\"https://gutendex.com/books/?page=2\",\"previous\":null,\"results\":[");
+        for (int id = 1; id <= n; id++) {
+            if (id > 1) sb.append(',');
+            sb.append("{\"id\":").append(id)
+              .append(",\"title\":\"").append(CatalogoSintetico.PALABRAS[id % 16]).append(" and ")
+              .append(CatalogoSintetico.PALABRAS[(id * 3) % 16]).append(' ').append(id).append('"')
+              .append(",\"authors\":[{\"name\":\"Autor sintético ").append(id % 97)
+              .append("\",\"birth_year\":").append(1700 + id % 150)
+              .append(",\"death_year\":").append(1760 + id % 150).append("}]")
+              .append(",\"translators\":[],\"subjects\":[\"Fiction\",\"Love stories\",\"Domestic fiction\"]")
+              .append(",\"bookshelves\":[\"Best Books Ever Listings\",\"Harvard Classics\"]")
+              .append(",\"languages\":[\"").append(CatalogoSintetico.IDIOMAS[id % 10]).append("\"]")
+              .append(",\"copyright\":false,\"media_type\":\"Text\",\"formats\":{")
+              .append("\"text/html\":\"https://www.gutenberg.org/ebooks/").append(id).append(".html.images\",")
+              .append("\"application/epub+zip\":\"https://www.gutenberg.org/ebooks/").append(id).append(".epub3.images\",")
+              .append("\"text/plain; charset=us-ascii\":\"https://www.gutenberg.org/ebooks/").append(id).append(".txt.utf-8\",")
+              .append("\"image/jpeg\":\"https://www.gutenberg.org/cache/epub/").append(id).append("/pg").append(id).append(".cover.medium.jpg\"}")
+              .append(",\"download_count\":").append((id * 7919) % 100003).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+}
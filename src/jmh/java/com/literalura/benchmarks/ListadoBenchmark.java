@@ -0,0 +1,51 @@
+package com.literalura.benchmarks;
+
+import com.literalura.domain.LibroResumen;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listado completo de libros para la consola sobre el catálogo sintético grande.
+ * 'entidades' es el camino anterior (entidades Libro con su autor y luego LibroResumen.de);
+ * 'resumenes' la proyección con un único JOIN, y 'recorrido' la misma proyección en streaming.
+ * Ejecutar: java -jar target/literalura-benchmarks.jar ListadoBenchmark -p libros=1000000 -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+// Un millón de entidades en el contexto de persistencia no entra en el heap de ServicioBenchmark
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ListadoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Transacciones {
+        TransactionTemplate lectura;
+
+        @Setup(Level.Trial)
+        public void preparar(EstadoCatalogo c) {
+            lectura = new TransactionTemplate(c.contexto.getBean(PlatformTransactionManager.class));
+            lectura.setReadOnly(true);
+        }
+    }
+
+    @Benchmark
+    public List<LibroResumen> entidades(EstadoCatalogo c, Transacciones t) {
+        return t.lectura.execute(status -> c.libroRepository.findAll().stream().map(LibroResumen::de).toList());
+    }
+
+    @Benchmark
+    public List<LibroResumen> resumenes(EstadoCatalogo c) {
+        return c.service.listarTodosLosLibros();
+    }
+
+    @Benchmark
+    public long recorrido(EstadoCatalogo c, Blackhole bh) {
+        return c.service.recorrerLibros(bh::consume);
+    }
+}
@@ -0,0 +1,224 @@
+package com.literalura.benchmarks;
+
+import com.literalura.domain.Autor;
+import com.literalura.domain.EstadisticasDescargas;
+import com.literalura.domain.LibroResumen;
+import com.literalura.service.dto.ApiAuthorDTO;
+import com.literalura.service.dto.ApiBookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caminos calientes de LiteraluraService y de los repositorios sobre el catálogo sintético.
+ * Ejecutar: java -jar target/literalura-benchmarks.jar ServicioBenchmark [-p libros=1000000]
+ * (páginas de autores más profundas: -p autores=200000 -p paginaAutores=5000)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ServicioBenchmark {
+
+    private static final int TAMANIO_PAGINA = 32;
+
+    /** Recorre el catálogo en orden: cada invocación actualiza una página distinta de libros existentes. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int siguiente;
+        int descargas;
+
+        List<ApiBookDTO> paginaExistente(EstadoCatalogo c) {
+            List<ApiBookDTO> pagina = new ArrayList<>(TAMANIO_PAGINA);
+            descargas++;
+            for (int i = 0; i < TAMANIO_PAGINA; i++) {
+                int id = 1 + (siguiente++ % c.libros);
+                pagina.add(libro(id, c.autores, descargas));
+            }
+            return pagina;
+        }
+
+        String titulo() {
+            String[] p = CatalogoSintetico.PALABRAS;
+            int i = siguiente++;
+            return p[i % p.length] + " " + p[(i / p.length) % p.length];
+        }
+    }
+
+    /**
+     * Página 'pagina' del listado por descargas: el token keyset se obtiene recorriendo el listado una vez
+     * al preparar, y se comprueba que la página por OFFSET sea la misma.
+     */
+    @State(Scope.Benchmark)
+    public static class PaginaProfunda {
+        @Param({"10", "2000"})
+        public int pagina;
+
+        String token;
+
+        @Setup(Level.Trial)
+        public void preparar(EstadoCatalogo c) {
+            String t = null;
+            for (int i = 0; i < pagina; i++) t = c.service.paginaLibros(null, t, TAMANIO_PAGINA).siguiente();
+            token = t;
+            List<Long> keyset = c.service.paginaLibros(null, token, TAMANIO_PAGINA).elementos().stream()
+                    .map(LibroResumen::id).toList();
+            List<Long> offset = paginaPorOffset(c, pagina).stream().map(LibroResumen::id).toList();
+            if (!keyset.equals(offset)) {
+                throw new IllegalStateException("Keyset y OFFSET no coinciden en la página " + pagina);
+            }
+        }
+    }
+
+    /** Lo mismo para el listado de autores por (nombre, id). */
+    @State(Scope.Benchmark)
+    public static class PaginaProfundaAutores {
+        @Param({"10", "150"})
+        public int paginaAutores;
+
+        String token;
+
+        @Setup(Level.Trial)
+        public void preparar(EstadoCatalogo c) {
+            String t = null;
+            for (int i = 0; i < paginaAutores; i++) t = c.service.paginaAutores(t, TAMANIO_PAGINA).siguiente();
+            token = t;
+            List<Long> keyset = c.service.paginaAutores(token, TAMANIO_PAGINA).elementos().stream()
+                    .map(Autor::getId).toList();
+            List<Long> offset = paginaAutoresPorOffset(c, paginaAutores).stream().map(Autor::getId).toList();
+            if (keyset.isEmpty() || !keyset.equals(offset)) {
+                throw new IllegalStateException("Keyset y OFFSET no coinciden en la página de autores " + paginaAutores);
+            }
+        }
+    }
+
+    /**
+     * La búsqueda por título con el plan de antes del índice trigram: la misma consulta dentro de una
+     * transacción con 'enable_bitmapscan' apagado, así PostgreSQL recorre la tabla entera con el LIKE.
+     * Al preparar se comprueba con EXPLAIN que un plan usa el índice y el otro no.
+     */
+    @State(Scope.Benchmark)
+    public static class SinIndiceTrigram {
+        private static final String CONSULTA = "explain select l.* from libros l where lower(l.titulo) like '%amor%'";
+
+        JdbcTemplate jdbc;
+        TransactionTemplate tx;
+
+        @Setup(Level.Trial)
+        public void preparar(EstadoCatalogo c) {
+            jdbc = c.contexto.getBean(JdbcTemplate.class);
+            tx = new TransactionTemplate(c.contexto.getBean(PlatformTransactionManager.class));
+
+            String conIndice = String.join("\n", jdbc.queryForList(CONSULTA, String.class));
+            String sinIndice = sinIndice(() -> String.join("\n", jdbc.queryForList(CONSULTA, String.class)));
+            if (!conIndice.contains("idx_libros_titulo_trgm") || !sinIndice.contains("Seq Scan")) {
+                throw new IllegalStateException("Planes inesperados:\n" + conIndice + "\n--\n" + sinIndice);
+            }
+        }
+
+        // 'set local' vale hasta el fin de la transacción, a la que se suma la del servicio
+        <T> T sinIndice(Supplier<T> accion) {
+            return tx.execute(status -> {
+                jdbc.execute("set local enable_bitmapscan = off");
+                return accion.get();
+            });
+        }
+    }
+
+    @Benchmark
+    public List<LibroResumen> upsertPaginaExistente(EstadoCatalogo c, Cursor cursor) {
+        return c.service.guardarOActualizarLote(cursor.paginaExistente(c));
+    }
+
+    @Benchmark
+    public LibroResumen buscarPorTitulo(EstadoCatalogo c, Cursor cursor) {
+        return c.service.buscarYGuardarLibroPorTitulo(cursor.titulo());
+    }
+
+    // Los mismos títulos con el LIKE recorriendo la tabla, como antes de idx_libros_titulo_trgm
+    @Benchmark
+    public LibroResumen buscarPorTituloSinIndice(EstadoCatalogo c, Cursor cursor, SinIndiceTrigram s) {
+        String titulo = cursor.titulo();
+        return s.sinIndice(() -> c.service.buscarYGuardarLibroPorTitulo(titulo));
+    }
+
+    @Benchmark
+    public EstadisticasDescargas estadisticasGlobales(EstadoCatalogo c) {
+        return c.service.estadisticasDescargas(null);
+    }
+
+    @Benchmark
+    public EstadisticasDescargas estadisticasIdioma(EstadoCatalogo c) {
+        return c.service.estadisticasDescargas("es");
+    }
+
+    // Top N servido por la tabla de posiciones en memoria
+    @Benchmark
+    public List<LibroResumen> topIdiomaServicio(EstadoCatalogo c) {
+        return c.service.topPorIdioma("es", 10);
+    }
+
+    // La misma consulta directo contra la DB (lo que paga un fallo de caché)
+    @Benchmark
+    public List<LibroResumen> topIdiomaRepositorio(EstadoCatalogo c) {
+        return c.libroRepository.topResumenPorIdioma("es", PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public List<LibroResumen> topGlobalRepositorio(EstadoCatalogo c) {
+        return c.libroRepository.topResumen(PageRequest.of(0, 10));
+    }
+
+    // Página profunda por keyset: (descargas, id) < cursor, el índice arranca en esa posición
+    @Benchmark
+    public List<LibroResumen> paginaProfundaKeyset(EstadoCatalogo c, PaginaProfunda p) {
+        return c.service.paginaLibros(null, p.token, TAMANIO_PAGINA).elementos();
+    }
+
+    // La misma página por OFFSET: PostgreSQL lee y descarta pagina × tamaño filas antes de devolver la página
+    @Benchmark
+    public List<LibroResumen> paginaProfundaOffset(EstadoCatalogo c, PaginaProfunda p) {
+        return paginaPorOffset(c, p.pagina);
+    }
+
+    // (nombre, id) > cursor sobre el índice único de nombre
+    @Benchmark
+    public List<Autor> paginaProfundaAutoresKeyset(EstadoCatalogo c, PaginaProfundaAutores p) {
+        return c.service.paginaAutores(p.token, TAMANIO_PAGINA).elementos();
+    }
+
+    @Benchmark
+    public List<Autor> paginaProfundaAutoresOffset(EstadoCatalogo c, PaginaProfundaAutores p) {
+        return paginaAutoresPorOffset(c, p.paginaAutores);
+    }
+
+    // Misma consulta y orden que el keyset, desde el cursor inicial y con PageRequest.of(n, tamaño)
+    private static List<LibroResumen> paginaPorOffset(EstadoCatalogo c, int pagina) {
+        return c.libroRepository.paginaDespuesDe(Integer.MAX_VALUE, Long.MAX_VALUE,
+                PageRequest.of(pagina, TAMANIO_PAGINA));
+    }
+
+    private static List<Autor> paginaAutoresPorOffset(EstadoCatalogo c, int pagina) {
+        return c.autorRepository.paginaDespuesDe("", 0, PageRequest.of(pagina, TAMANIO_PAGINA));
+    }
+
+    static ApiBookDTO libro(int id, int autores, int descargas) {
+        int autorId = 1 + (id * 7) % autores;
+        ApiAuthorDTO autor = new ApiAuthorDTO("Autor sintético " + autorId, 1500 + (autorId * 37) % 450,
+                ApiAuthorDTO.SIN_ANIO);
+
+        String[] p = CatalogoSintetico.PALABRAS;
+        String primera = p[id % 16];
+        String titulo = Character.toUpperCase(primera.charAt(0)) + primera.substring(1)
+                + " " + p[(id / 16) % 16] + " " + id;
+        return new ApiBookDTO(id, titulo, List.of(autor), List.of(CatalogoSintetico.IDIOMAS[(id * 7) % 10]), descargas);
+    }
+}
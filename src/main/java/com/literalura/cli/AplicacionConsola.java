@@ -1,28 +1,66 @@
 package com.literalura.cli;
 
 import com.literalura.domain.Autor;
-import com.literalura.domain.Libro;
+import com.literalura.domain.EstadisticasDescargas;
+import com.literalura.domain.LibroResumen;
+import com.literalura.service.CargaMasiva;
+import com.literalura.service.EspejoCatalogo;
 import com.literalura.service.LiteraluraService;
+import com.literalura.service.Pagina;
+import com.literalura.service.ProcesadorLote;
+import com.literalura.service.ResultadoCargaMasiva;
+import com.literalura.service.ResultadoEspejo;
+import com.literalura.service.ResultadoImportacion;
+import com.literalura.service.ResultadoLote;
+import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.NumberFormat;
-import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Locale;
 import java.util.Scanner;
+import java.util.function.Function;
 
+// Se desactiva con literalura.consola.habilitada=false (p. ej. en los benchmarks, donde no hay teclado).
+// Con --lote=<archivo> no muestra el menú: ejecuta el archivo de comandos y termina (ver ProcesadorLote)
 @Component
+@ConditionalOnProperty(name = "literalura.consola.habilitada", havingValue = "true", matchIfMissing = true)
 public class AplicacionConsola implements CommandLineRunner {
 
+    private static final int TAMANIO_PAGINA = 20;
+
     private final LiteraluraService service;
+    private final EspejoCatalogo espejo;
+    private final CargaMasiva cargaMasiva;
+    private final ProcesadorLote procesadorLote;
 
-    public AplicacionConsola(LiteraluraService service) {
+    public AplicacionConsola(LiteraluraService service, EspejoCatalogo espejo, CargaMasiva cargaMasiva,
+                             ProcesadorLote procesadorLote) {
         this.service = service;
+        this.espejo = espejo;
+        this.cargaMasiva = cargaMasiva;
+        this.procesadorLote = procesadorLote;
     }
 
     @Override
-    public void run(String... args) {
+    public void run(String... args) throws IOException {
+        ApplicationArguments argumentos = new DefaultApplicationArguments(args);
+        if (argumentos.containsOption("lote")) {
+            ejecutarLote(argumentos);
+            return;
+        }
         try (Scanner sc = new Scanner(System.in)) {
             boolean continuar = true;
             while (continuar) {
@@ -43,20 +81,18 @@ public class AplicacionConsola implements CommandLineRunner {
                         }
                         case "2" -> {
                             System.out.println("\n📚 Lista de todos los libros:");
-                            service.listarTodosLosLibros().forEach(l -> System.out.println("• " + formatLibro(l)));
+                            service.recorrerLibros(l -> System.out.println("• " + formatLibro(l)));
                         }
                         case "3" -> {
                             System.out.println("\n👤 Lista de autores:");
-                            service.listarAutores().forEach(a -> System.out.println("• " + formatAutor(a)));
+                            service.recorrerAutores(a -> System.out.println("• " + formatAutor(a)));
                         }
                         case "4" -> {
                             System.out.print("Ingrese año para autores vivos: ");
                             int anio = Integer.parseInt(sc.nextLine().trim());
-                            var autores = service.listarAutoresVivosEn(anio);
-                            if (autores.isEmpty()) {
+                            long total = paginar(sc, t -> service.paginaAutoresVivosEn(anio, t, TAMANIO_PAGINA), this::formatAutor);
+                            if (total == 0) {
                                 System.out.println("\nNo hay autores vivos en ese año (según registros).\n");
-                            } else {
-                                autores.forEach(a -> System.out.println("• " + formatAutor(a)));
                             }
                         }
                         case "5" -> {
@@ -64,9 +100,16 @@ public class AplicacionConsola implements CommandLineRunner {
                             String idioma = sc.nextLine().trim();
                             System.out.print("¿Cuántos importar? ");
                             int max = Integer.parseInt(sc.nextLine().trim());
-                            List<Libro> importados = service.importarPorIdioma(idioma, max);
-                            System.out.printf("%n✅ Importados %d libros de idioma '%s'%n", importados.size(), idioma);
-                            importados.forEach(l -> System.out.println("• " + formatLibro(l)));
+                            ResultadoImportacion r = service.importarPorIdiomaPipeline(idioma, max);
+                            System.out.printf("%n✅ Importados %d libros de idioma '%s'%n", r.libros().size(), idioma);
+                            r.libros().forEach(l -> System.out.println("• " + formatLibro(l)));
+                            System.out.printf("⏱️  %d páginas, %d filas en %.1f s (%.1f páginas/s, %.1f filas/s)%n",
+                                    r.paginas(), r.filas(), r.duracion().toMillis() / 1000.0,
+                                    r.paginasPorSegundo(), r.filasPorSegundo());
+                            System.out.printf("   %d nuevos, %d actualizados, %d sin cambios%n",
+                                    r.nuevos(), r.actualizados(), r.sinCambios());
+                            System.out.printf("   Consultas de autores evitadas: %d (%.0f cada 10.000 libros)%n",
+                                    r.consultasEvitadas(), r.consultasEvitadasCada10k());
                         }
                         case "6" -> {
                             System.out.print("Ingrese idioma para contar (ej: 'en' o 'es'): ");
@@ -91,15 +134,26 @@ public class AplicacionConsola implements CommandLineRunner {
                         case "9" -> { // Estadísticas
                             System.out.print("Idioma (vacío = global): ");
                             String idioma = sc.nextLine().trim();
-                            IntSummaryStatistics s = service.estadisticasDescargas(idioma);
+                            EstadisticasDescargas s = service.estadisticasDescargas(idioma);
 
                             var nf = NumberFormat.getIntegerInstance(Locale.getDefault());
                             System.out.println("\n📈 Estadísticas de descargas" + (idioma.isBlank() ? " (global)" : " ['" + idioma + "']"));
-                            System.out.println("• count = " + s.getCount());
-                            System.out.println("• sum   = " + nf.format((long) s.getSum()));
-                            System.out.println("• min   = " + nf.format((long) s.getMin()));
-                            System.out.println("• max   = " + nf.format((long) s.getMax()));
-                            System.out.println("• avg   = " + nf.format(Math.round(s.getAverage())));
+                            System.out.println("• count = " + s.cantidad());
+                            System.out.println("• sum   = " + nf.format(s.suma()));
+                            System.out.println("• min   = " + nf.format(s.minimo()));
+                            System.out.println("• max   = " + nf.format(s.maximo()));
+                            System.out.println("• avg   = " + nf.format(Math.round(s.promedio())));
+                            System.out.println("• p50   = " + nf.format(Math.round(s.p50())));
+                            System.out.println("• p90   = " + nf.format(Math.round(s.p90())));
+                            System.out.println("• p99   = " + nf.format(Math.round(s.p99())));
+
+                            if (idioma.isBlank()) {
+                                System.out.println("\nPor idioma (count / sum / avg / p50 / p90 / p99):");
+                                service.estadisticasPorIdioma().forEach(e -> System.out.printf("• [%s] %d / %s / %s / %s / %s / %s%n",
+                                        e.clave() == null ? "?" : e.clave(), e.cantidad(), nf.format(e.suma()),
+                                        nf.format(Math.round(e.promedio())), nf.format(Math.round(e.p50())),
+                                        nf.format(Math.round(e.p90())), nf.format(Math.round(e.p99()))));
+                            }
                         }
                         case "10" -> { // Buscar autor por nombre
                             System.out.print("Nombre (o parte): ");
@@ -114,20 +168,58 @@ public class AplicacionConsola implements CommandLineRunner {
                         }
                         case "11" -> { // Listados por rangos
                             System.out.print("Rango nacimiento (desde): ");
-                            Integer nd = Integer.parseInt(sc.nextLine().trim());
+                            int nd = Integer.parseInt(sc.nextLine().trim());
                             System.out.print("Rango nacimiento (hasta): ");
-                            Integer nh = Integer.parseInt(sc.nextLine().trim());
-                            var nac = service.autoresPorNacimientoEntre(nd, nh);
+                            int nh = Integer.parseInt(sc.nextLine().trim());
                             System.out.printf("%n👶 Autores nacidos entre %d y %d:%n", nd, nh);
-                            nac.forEach(a -> System.out.println("• " + formatAutor(a)));
+                            paginar(sc, t -> service.paginaAutoresNacidosEntre(nd, nh, t, TAMANIO_PAGINA), this::formatAutor);
 
                             System.out.print("\nRango fallecimiento (desde): ");
-                            Integer fd = Integer.parseInt(sc.nextLine().trim());
+                            int fd = Integer.parseInt(sc.nextLine().trim());
                             System.out.print("Rango fallecimiento (hasta): ");
-                            Integer fh = Integer.parseInt(sc.nextLine().trim());
-                            var fal = service.autoresPorFallecimientoEntre(fd, fh);
+                            int fh = Integer.parseInt(sc.nextLine().trim());
                             System.out.printf("%n🕯️  Autores fallecidos entre %d y %d:%n", fd, fh);
-                            fal.forEach(a -> System.out.println("• " + formatAutor(a)));
+                            paginar(sc, t -> service.paginaAutoresFallecidosEntre(fd, fh, t, TAMANIO_PAGINA), this::formatAutor);
+                        }
+                        case "12" -> { // Línea de tiempo de autores vivos
+                            System.out.print("Desde el año: ");
+                            int desde = Integer.parseInt(sc.nextLine().trim());
+                            System.out.print("Hasta el año: ");
+                            int hasta = Integer.parseInt(sc.nextLine().trim());
+                            var porAnio = service.contarAutoresVivosPorAnio(desde, hasta);
+                            System.out.printf("%n⏳ Autores vivos por año (%d–%d):%n", desde, hasta);
+                            porAnio.forEach((anio, vivos) -> System.out.printf("• %d: %d%n", anio, vivos));
+                        }
+                        case "13" -> { // Espejo del catálogo completo
+                            System.out.print("¿Continuar desde el último punto de control? (S/n): ");
+                            if (sc.nextLine().trim().equalsIgnoreCase("n")) {
+                                System.out.printf("Puntos de control borrados: %d%n", espejo.reiniciar());
+                            }
+                            ResultadoEspejo r = espejo.espejar();
+                            System.out.printf("%n🪞 Catálogo: %d páginas (%d guardadas ahora, %d ya estaban, %d fallidas)%n",
+                                    r.paginasTotales(), r.paginasGuardadas(), r.paginasOmitidas(), r.paginasFallidas());
+                            System.out.printf("⏱️  %d filas en %.1f s (%.1f páginas/s, %.1f filas/s)%n",
+                                    r.filas(), r.duracion().toMillis() / 1000.0,
+                                    r.paginasPorSegundo(), r.filasPorSegundo());
+                            System.out.printf("   %d nuevos, %d actualizados%n", r.nuevos(), r.actualizados());
+                            System.out.printf("   Consultas de autores evitadas: %d (%.0f cada 10.000 libros)%n",
+                                    r.consultasEvitadas(), r.consultasEvitadasCada10k());
+                            if (!r.completo()) {
+                                System.out.println("   Quedaron páginas pendientes: vuelva a ejecutar la opción para reintentarlas.");
+                            }
+                        }
+                        case "14" -> { // Carga masiva desde un volcado local
+                            System.out.print("Archivo (páginas JSON o NDJSON de libros, admite .gz): ");
+                            Path archivo = Path.of(sc.nextLine().trim());
+                            ResultadoCargaMasiva r = cargaMasiva.cargar(archivo);
+                            System.out.printf("%n📥 %d libros cargados en %.1f s (%.0f libros/s)%n",
+                                    r.libros(), r.duracion().toMillis() / 1000.0, r.librosPorSegundo());
+                            System.out.printf("   %d nuevos, %d actualizados; %d autores (%d nuevos)%n",
+                                    r.nuevos(), r.actualizados(), r.autores(), r.autoresNuevos());
+                            if (r.duplicados() > 0 || r.omitidos() > 0) {
+                                System.out.printf("   %d repetidos en el archivo, %d sin id (omitidos)%n",
+                                        r.duplicados(), r.omitidos());
+                            }
                         }
                         case "0" -> {
                             continuar = false;
@@ -142,6 +234,59 @@ public class AplicacionConsola implements CommandLineRunner {
         }
     }
 
+    // ===== Modo por lotes =====
+
+    // --lote=<archivo|-> [--salida=<archivo>] [--formato=ndjson|csv] [--paralelismo=N]
+    private void ejecutarLote(ApplicationArguments argumentos) throws IOException {
+        String archivo = opcion(argumentos, "lote");
+        String salida = opcion(argumentos, "salida");
+        String formato = opcion(argumentos, "formato");
+        String paralelismo = opcion(argumentos, "paralelismo");
+        if (archivo == null) throw new IllegalArgumentException("Uso: --lote=<archivo> (o --lote=- para la entrada estándar)");
+
+        SalidaLote.Formato f = formato != null ? SalidaLote.Formato.valueOf(formato.toUpperCase(Locale.ROOT))
+                : SalidaLote.formatoDe(salida);
+        int hilos = paralelismo != null ? Integer.parseInt(paralelismo) : procesadorLote.paralelismoPorDefecto();
+        // Si los resultados van a la salida estándar, el resumen va a la de errores para no mezclarse
+        PrintStream informe = salida == null ? System.err : System.out;
+
+        BufferedReader entrada = archivo.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(archivo), StandardCharsets.UTF_8);
+        SalidaLote resultados = salida == null
+                ? new SalidaLote(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)), f, false)
+                : new SalidaLote(Files.newBufferedWriter(Path.of(salida), StandardCharsets.UTF_8), f, true);
+        ResultadoLote r;
+        try (entrada; resultados) {
+            r = procesadorLote.procesar(entrada, hilos, resultados::escribir);
+        }
+
+        informe.printf("%n📦 Lote: %d comandos en %.1f s (%.1f/s, %d en paralelo)%n",
+                r.comandos(), r.duracion().toMillis() / 1000.0, r.comandosPorSegundo(), r.paralelismo());
+        informe.printf("   %d ok, %d sin resultado, %d con error%n", r.ok(), r.noEncontrados(), r.errores());
+        informe.printf("   Latencia por comando: p50 %d ms, p95 %d ms, máx %d ms%n", r.p50Milis(), r.p95Milis(), r.maxMilis());
+    }
+
+    private static String opcion(ApplicationArguments argumentos, String nombre) {
+        List<String> valores = argumentos.getOptionValues(nombre);
+        return valores == null || valores.isEmpty() ? null : valores.get(0);
+    }
+
+    // Muestra página por página hasta que no haya más o el usuario corte; devuelve cuántos mostró
+    private <T> long paginar(Scanner sc, Function<String, Pagina<T>> pedirPagina, Function<T, String> formato) {
+        long total = 0;
+        String token = null;
+        while (true) {
+            Pagina<T> pagina = pedirPagina.apply(token);
+            pagina.elementos().forEach(e -> System.out.println("• " + formato.apply(e)));
+            total += pagina.elementos().size();
+            if (!pagina.hayMas()) return total;
+            System.out.print("-- Enter para ver más, 'q' para terminar: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) return total;
+            token = pagina.siguiente();
+        }
+    }
+
     private void mostrarMenu() {
         System.out.println("\n================= LiterAlura =================");
         System.out.println("1) Buscar libro por título (API → Guardar en DB)");
@@ -150,21 +295,23 @@ public class AplicacionConsola implements CommandLineRunner {
         System.out.println("4) Listar autores vivos en un año");
         System.out.println("5) Importar libros por idioma (API, paginado)");
         System.out.println("6) Contar libros por idioma");
-        System.out.println("7) Top 10 libros más descargados (DB)");
-        System.out.println("8) Top N por idioma (DB)");
+        System.out.println("7) Top 10 libros más descargados");
+        System.out.println("8) Top N por idioma");
         System.out.println("9) Estadísticas de descargas (global / por idioma)");
         System.out.println("10) Buscar autor por nombre (DB)");
         System.out.println("11) Listar autores por rangos (nac/fall) (DB)");
+        System.out.println("12) Autores vivos por año en un rango (DB)");
+        System.out.println("13) Espejar catálogo completo de Gutendex (API, en paralelo)");
+        System.out.println("14) Carga masiva desde un volcado local (archivo JSON/NDJSON)");
         System.out.println("0) Salir");
         System.out.println("==============================================");
     }
 
-    private String formatLibro(Libro l) {
-        String autor = (l.getAutor() != null && l.getAutor().getNombre() != null)
-                ? l.getAutor().getNombre() : "(desconocido)";
-        String lang = l.getIdioma() == null ? "?" : l.getIdioma();
-        int dl = l.getDescargas() == null ? 0 : l.getDescargas();
-        return "%s — %s [%s] ↑%d".formatted(l.getTitulo(), autor, lang, dl);
+    private String formatLibro(LibroResumen l) {
+        String autor = l.autorNombre() == null ? "(desconocido)" : l.autorNombre();
+        String lang = l.idioma() == null ? "?" : l.idioma();
+        int dl = l.descargas() == null ? 0 : l.descargas();
+        return "%s — %s [%s] ↑%d".formatted(l.titulo(), autor, lang, dl);
     }
 
     private String formatAutor(Autor a) {
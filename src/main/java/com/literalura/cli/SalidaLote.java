@@ -0,0 +1,105 @@
+package com.literalura.cli;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.literalura.domain.LibroResumen;
+import com.literalura.service.ProcesadorLote.ResultadoComando;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Resultados del modo por lotes, una fila por comando y con flush por fila (se puede seguir con 'tail -f').
+ * NDJSON (un objeto por línea) o CSV con encabezado; las columnas son las mismas en ambos formatos.
+ */
+final class SalidaLote implements Closeable {
+
+    enum Formato { NDJSON, CSV }
+
+    private static final String[] COLUMNAS =
+            {"linea", "comando", "entrada", "estado", "titulo", "autor", "idioma", "descargas", "libros", "ms", "error"};
+
+    private final Writer destino;
+    private final Formato formato;
+    private final boolean cerrarDestino;
+    private final JsonGenerator json;
+
+    /** Con 'cerrarDestino' en false (la salida estándar) close() sólo hace flush. */
+    SalidaLote(Writer destino, Formato formato, boolean cerrarDestino) throws IOException {
+        this.destino = destino;
+        this.formato = formato;
+        this.cerrarDestino = cerrarDestino;
+        if (formato == Formato.NDJSON) {
+            json = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).createGenerator(destino);
+            json.setRootValueSeparator(null); // el separador entre objetos es el salto de línea que se escribe a mano
+        } else {
+            json = null;
+            destino.write(String.join(",", COLUMNAS));
+            destino.write('\n');
+        }
+    }
+
+    /** Formato según la extensión del archivo: '.csv' es CSV, cualquier otra cosa NDJSON. */
+    static Formato formatoDe(String archivo) {
+        return archivo != null && archivo.toLowerCase(Locale.ROOT).endsWith(".csv") ? Formato.CSV : Formato.NDJSON;
+    }
+
+    void escribir(ResultadoComando r) {
+        try {
+            if (formato == Formato.NDJSON) escribirJson(r);
+            else escribirCsv(r);
+            destino.write('\n');
+            destino.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el resultado de la línea " + r.linea(), e);
+        }
+    }
+
+    private void escribirJson(ResultadoComando r) throws IOException {
+        LibroResumen l = r.libro();
+        json.writeStartObject();
+        json.writeNumberField("linea", r.linea());
+        json.writeStringField("comando", r.comando());
+        json.writeStringField("entrada", r.entrada());
+        json.writeStringField("estado", r.estado().name().toLowerCase(Locale.ROOT));
+        if (l != null) {
+            json.writeStringField("titulo", l.titulo());
+            json.writeStringField("autor", l.autorNombre());
+            json.writeStringField("idioma", l.idioma());
+            if (l.descargas() != null) json.writeNumberField("descargas", l.descargas());
+        }
+        if (r.libros() != null) json.writeNumberField("libros", r.libros());
+        json.writeNumberField("ms", r.milis());
+        if (r.error() != null) json.writeStringField("error", r.error());
+        json.writeEndObject();
+        json.flush();
+    }
+
+    private void escribirCsv(ResultadoComando r) throws IOException {
+        LibroResumen l = r.libro();
+        Object[] valores = {
+                r.linea(), r.comando(), r.entrada(), r.estado().name().toLowerCase(Locale.ROOT),
+                l == null ? null : l.titulo(), l == null ? null : l.autorNombre(), l == null ? null : l.idioma(),
+                l == null ? null : l.descargas(), r.libros(), r.milis(), r.error()};
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) destino.write(',');
+            if (valores[i] != null) destino.write(campoCsv(valores[i].toString()));
+        }
+    }
+
+    // RFC 4180: entre comillas si tiene coma, comillas o salto de línea; las comillas se duplican
+    private static String campoCsv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) json.close();
+        if (cerrarDestino) destino.close();
+        else destino.flush();
+    }
+}
@@ -1,17 +1,20 @@
 package com.literalura.console;
 
-import com.literalura.domain.Autor;
-import com.literalura.domain.Libro;
+import com.literalura.domain.LibroResumen;
 import com.literalura.service.LiteraluraService;
+import com.literalura.service.Pagina;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.Function;
 
 @Component
 public class Principal {
 
+    private static final int TAMANIO_PAGINA = 20;
+
     private final LiteraluraService service;
     private final Scanner teclado = new Scanner(System.in);
 
@@ -57,13 +60,13 @@ public class Principal {
         String titulo = teclado.nextLine().trim();
 
         // 1) Guardar el mejor match
-        Optional<Libro> res = service.buscarYGuardarPorTitulo(titulo);
+        Optional<LibroResumen> res = service.buscarYGuardarPorTitulo(titulo);
         if (res.isPresent()) {
-            Libro l = res.get();
+            LibroResumen l = res.get();
             System.out.println("\n✓ Mejor coincidencia guardada/actualizada:");
             System.out.printf("Libro{id=%d, titulo='%s', idioma='%s', descargas=%d, autor='%s'}%n",
-                    l.getId(), l.getTitulo(), l.getIdioma(), l.getDescargas(),
-                    l.getAutor() != null ? l.getAutor().getNombre() : "(desconocido)");
+                    l.id(), l.titulo(), l.idioma(), l.descargas(),
+                    l.autorNombre() != null ? l.autorNombre() : "(desconocido)");
         } else {
             System.out.println("\n✗ No se encontró libro para ese título.");
         }
@@ -78,76 +81,83 @@ public class Principal {
                 max = Integer.parseInt(teclado.nextLine().trim());
             } catch (NumberFormatException ignored) {}
 
-            List<Libro> varios = service.buscarYGuardarVariosPorTitulo(titulo, Math.max(1, max));
+            List<LibroResumen> varios = service.buscarYGuardarVariosPorTitulo(titulo, Math.max(1, max));
             if (varios.isEmpty()) {
                 System.out.println("No se encontraron coincidencias adicionales.");
             } else {
                 System.out.printf("Se guardaron/actualizaron %d resultados:%n", varios.size());
                 varios.forEach(l -> System.out.printf("- %s [%s] - %s (descargas: %d)%n",
-                        l.getTitulo(),
-                        l.getIdioma(),
-                        l.getAutor() != null ? l.getAutor().getNombre() : "(desconocido)",
-                        l.getDescargas() == null ? 0 : l.getDescargas()));
+                        l.titulo(),
+                        l.idioma(),
+                        l.autorNombre() != null ? l.autorNombre() : "(desconocido)",
+                        l.descargas() == null ? 0 : l.descargas()));
             }
         }
         System.out.println();
     }
 
     private void listarLibros() {
-        List<Libro> libros = service.listarTodosLosLibros();
-        if (libros.isEmpty()) {
-            System.out.println("\n(No hay libros en la base de datos)\n");
-            return;
-        }
         System.out.println("\n📚 Lista de todos los libros:");
-        libros.forEach(l -> System.out.printf("- %s [%s] - %s (descargas: %d)%n",
-                l.getTitulo(),
-                l.getIdioma(),
-                l.getAutor() != null ? l.getAutor().getNombre() : "(desconocido)",
-                l.getDescargas() == null ? 0 : l.getDescargas()));
+        long total = service.recorrerLibros(l -> System.out.printf("- %s [%s] - %s (descargas: %d)%n",
+                l.titulo(),
+                l.idioma(),
+                l.autorNombre() != null ? l.autorNombre() : "(desconocido)",
+                l.descargas() == null ? 0 : l.descargas()));
+        if (total == 0) {
+            System.out.println("(No hay libros en la base de datos)");
+        }
         System.out.println();
     }
 
     private void listarAutores() {
-        List<Autor> autores = service.listarAutores();
-        if (autores.isEmpty()) {
-            System.out.println("\n(No hay autores en la base de datos)\n");
-            return;
-        }
         System.out.println("\n👤 Lista de autores:");
-        autores.forEach(a -> System.out.printf("- %s (%s–%s)%n",
+        long total = service.recorrerAutores(a -> System.out.printf("- %s (%s–%s)%n",
                 a.getNombre(),
                 a.getAnioNacimiento(),
                 a.getAnioFallecimiento()));
+        if (total == 0) {
+            System.out.println("(No hay autores en la base de datos)");
+        }
         System.out.println();
     }
 
     private void listarAutoresVivos() {
         System.out.print("Ingrese año: ");
         int anio = Integer.parseInt(teclado.nextLine());
-        List<Autor> autores = service.listarAutoresVivosEn(anio);
-        if (autores.isEmpty()) {
+        long total = paginar(t -> service.paginaAutoresVivosEn(anio, t, TAMANIO_PAGINA),
+                a -> String.format("- %s (%s–%s)", a.getNombre(), a.getAnioNacimiento(), a.getAnioFallecimiento()));
+        if (total == 0) {
             System.out.println("\nNo hay autores vivos en ese año (según registros).\n");
             return;
         }
-        autores.forEach(a ->
-                System.out.printf("- %s (%s–%s)%n", a.getNombre(),
-                        a.getAnioNacimiento(), a.getAnioFallecimiento()));
         System.out.println();
     }
 
     private void listarPorIdioma() {
         System.out.print("Ingrese idioma (código ISO, ej: en, es, fr): ");
         String idioma = teclado.nextLine();
-        List<Libro> libros = service.listarLibrosPorIdioma(idioma);
-        System.out.printf("%nLibros en '%s' (total: %d)%n", idioma, libros.size());
-        libros.forEach(l ->
-                System.out.printf("- %s [%s] - %s%n",
-                        l.getTitulo(), l.getIdioma(),
-                        l.getAutor() != null ? l.getAutor().getNombre() : "(desconocido)"));
+        System.out.printf("%nLibros en '%s' (total: %d)%n", idioma, service.contarLibrosPorIdioma(idioma));
+        paginar(t -> service.paginaLibros(idioma, t, TAMANIO_PAGINA),
+                l -> String.format("- %s [%s] - %s", l.titulo(), l.idioma(),
+                        l.autorNombre() != null ? l.autorNombre() : "(desconocido)"));
         System.out.println();
     }
 
+    // Imprime de a una página; sigue mientras haya más y el usuario no escriba 'q'
+    private <T> long paginar(Function<String, Pagina<T>> pedirPagina, Function<T, String> formato) {
+        long total = 0;
+        String token = null;
+        while (true) {
+            Pagina<T> pagina = pedirPagina.apply(token);
+            pagina.elementos().forEach(e -> System.out.println(formato.apply(e)));
+            total += pagina.elementos().size();
+            if (!pagina.hayMas()) return total;
+            System.out.print("(Enter = más, q = salir) ");
+            if (teclado.nextLine().trim().equalsIgnoreCase("q")) return total;
+            token = pagina.siguiente();
+        }
+    }
+
     private void contarPorIdioma() {
         System.out.print("Ingrese idioma (código ISO): ");
         String idioma = teclado.nextLine();
@@ -12,8 +12,10 @@ import java.util.List;
 })
 public class Autor {
 
+    // Secuencia con allocationSize > 1 para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "autores_seq")
+    @SequenceGenerator(name = "autores_seq", sequenceName = "autores_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
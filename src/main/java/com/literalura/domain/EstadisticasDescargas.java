@@ -0,0 +1,16 @@
+package com.literalura.domain;
+
+/**
+ * Resumen de descargas calculado en la base de datos.
+ * 'clave' es el grupo (idioma o autor); null para el resumen global.
+ */
+public record EstadisticasDescargas(String clave,
+                                    long cantidad,
+                                    long suma,
+                                    int minimo,
+                                    int maximo,
+                                    double promedio,
+                                    double p50,
+                                    double p90,
+                                    double p99) {
+}
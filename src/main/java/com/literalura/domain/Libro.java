@@ -1,15 +1,28 @@
 package com.literalura.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "libros")
+@Table(name = "libros", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_libro_gutenberg_id", columnNames = "gutenberg_id")
+})
 public class Libro {
 
+    // Secuencia con allocationSize > 1 para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "libros_seq")
+    @SequenceGenerator(name = "libros_seq", sequenceName = "libros_seq", allocationSize = 50)
     private Long id;
 
+    // Id estable del libro en Gutenberg/Gutendex: clave natural de los upserts
+    @Column(name = "gutenberg_id")
+    private Integer gutenbergId;
+
     @Column(nullable = false)
     private String titulo;
 
@@ -18,15 +31,36 @@ public class Libro {
 
     private Integer descargas;
 
-    // EAGER para evitar LazyInitializationException al imprimir el autor en toString()
-    @ManyToOne(fetch = FetchType.EAGER)
+    // LAZY: las vistas de lectura usan LibroResumen (JOIN en la consulta), no esta asociación
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "autor_id")
     private Autor autor;
 
+    // Todos los autores en el orden de Gutendex (el primero es 'autor'). LAZY y por lotes:
+    // al recorrer N libros se cargan las colecciones de 50 en 50, no con un SELECT por libro
+    @ManyToMany
+    @JoinTable(name = "libro_autores",
+            joinColumns = @JoinColumn(name = "libro_id"),
+            inverseJoinColumns = @JoinColumn(name = "autor_id"))
+    @OrderColumn(name = "posicion")
+    @BatchSize(size = 50)
+    private List<Autor> autores = new ArrayList<>();
+
+    // Todos los idiomas (el primero es 'idioma', que es el que indexan las consultas por idioma)
+    @ElementCollection
+    @CollectionTable(name = "libro_idiomas", joinColumns = @JoinColumn(name = "libro_id"))
+    @Column(name = "idioma", length = 10)
+    @OrderColumn(name = "posicion")
+    @BatchSize(size = 50)
+    private List<String> idiomas = new ArrayList<>();
+
     // ===== getters/setters =====
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Integer getGutenbergId() { return gutenbergId; }
+    public void setGutenbergId(Integer gutenbergId) { this.gutenbergId = gutenbergId; }
+
     public String getTitulo() { return titulo; }
     public void setTitulo(String titulo) { this.titulo = titulo; }
 
@@ -39,9 +73,19 @@ public class Libro {
     public Autor getAutor() { return autor; }
     public void setAutor(Autor autor) { this.autor = autor; }
 
+    public List<Autor> getAutores() { return autores; }
+    public void setAutores(List<Autor> autores) { this.autores = autores; }
+
+    public List<String> getIdiomas() { return idiomas; }
+    public void setIdiomas(List<String> idiomas) { this.idiomas = idiomas; }
+
     @Override
     public String toString() {
-        String autorNombre = (autor != null && autor.getNombre() != null) ? autor.getNombre() : "Autor desconocido";
+        // Nunca inicializa el proxy: fuera de la transacción tiraría LazyInitializationException
+        String autorNombre;
+        if (autor == null) autorNombre = "Autor desconocido";
+        else if (!Hibernate.isInitialized(autor)) autorNombre = "autor #" + autor.getId();
+        else autorNombre = autor.getNombre() != null ? autor.getNombre() : "Autor desconocido";
         String lang = (idioma != null ? idioma : "—");
         String down = (descargas != null ? String.valueOf(descargas) : "0");
         // Ej: Frankenstein — Mary Shelley [en] ↑95,343
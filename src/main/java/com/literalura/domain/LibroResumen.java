@@ -0,0 +1,14 @@
+package com.literalura.domain;
+
+/**
+ * Vista de lectura de un libro con el nombre de su autor ya resuelto.
+ * Se construye directamente en la consulta (sin entidades gestionadas), así que
+ * puede imprimirse fuera de la transacción.
+ */
+public record LibroResumen(Long id, String titulo, String autorNombre, String idioma, Integer descargas) {
+
+    public static LibroResumen de(Libro l) {
+        String autor = l.getAutor() != null ? l.getAutor().getNombre() : null;
+        return new LibroResumen(l.getId(), l.getTitulo(), autor, l.getIdioma(), l.getDescargas());
+    }
+}
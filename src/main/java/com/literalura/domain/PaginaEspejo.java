@@ -0,0 +1,33 @@
+package com.literalura.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/** Punto de control del espejo del catálogo: una fila por página de Gutendex ya guardada. */
+@Entity
+@Table(name = "espejo_paginas")
+public class PaginaEspejo {
+
+    @Id
+    private Integer pagina;
+
+    @Column(nullable = false)
+    private int filas;
+
+    @Column(nullable = false)
+    private Instant completada;
+
+    protected PaginaEspejo() {}
+
+    public PaginaEspejo(Integer pagina, int filas) {
+        this.pagina = pagina;
+        this.filas = filas;
+        this.completada = Instant.now();
+    }
+
+    // ===== getters =====
+    public Integer getPagina() { return pagina; }
+    public int getFilas() { return filas; }
+    public Instant getCompletada() { return completada; }
+}
@@ -1,28 +1,138 @@
 package com.literalura.repository;
 
 import com.literalura.domain.Autor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AutorRepository extends JpaRepository<Autor, Long> {
 
     Optional<Autor> findByNombreIgnoreCase(String nombre);
 
-    List<Autor> findByNombreContainingIgnoreCase(String nombre);
+    // Recorrido completo en streaming (filas de a 500); consumir dentro de una transacción
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select a from Autor a order by a.id")
+    Stream<Autor> streamTodos();
 
-    // Vivos en un año dado: nacimiento <= año y (fallecimiento > año o null)
+    // Búsqueda por fragmento del nombre servida por el índice trigram (idx_autores_nombre_trgm)
+    @Query(value = """
+           select a.* from autores a
+           where lower(a.nombre) like :patron escape '!'
+           order by similarity(lower(a.nombre), :q) desc, a.nombre
+           """, nativeQuery = true)
+    List<Autor> buscarPorNombre(@Param("patron") String patron, @Param("q") String q);
+
+    // Resolución en bloque para los upserts por página (una sola consulta por lote)
     @Query("""
            select a from Autor a
-           where (a.anioNacimiento is null or a.anioNacimiento <= :anio)
-             and (a.anioFallecimiento is null or a.anioFallecimiento > :anio)
+           where lower(a.nombre) in :claves or a.nombre in :exactos
            """)
-    List<Autor> autoresVivosEn(int anio);
+    List<Autor> findByNombreEnMinusculasOExacto(@Param("claves") Collection<String> claves,
+                                               @Param("exactos") Collection<String> exactos);
+
+    // Alta sin carreras: si el nombre ya existe (o lo está insertando otra transacción) no hace nada.
+    // Usa la misma secuencia que Hibernate; cada nextval es el techo de un bloque que Hibernate no reparte
+    @Modifying
+    @Query(value = """
+           insert into autores (id, nombre, anio_nacimiento, anio_fallecimiento)
+           values (nextval('autores_seq'), :nombre, cast(:nacimiento as integer), cast(:fallecimiento as integer))
+           on conflict (nombre) do nothing
+           """, nativeQuery = true)
+    int insertarSiNoExiste(@Param("nombre") String nombre,
+                           @Param("nacimiento") Integer anioNacimiento,
+                           @Param("fallecimiento") Integer anioFallecimiento);
+
+    // ===== Vivos por año, servidos por el índice GiST sobre autor_vida() (ver db/migration) =====
+    // Vivo en un año: nacimiento <= año < fallecimiento, con extremos nulos sin límite
+
+    @Query(value = """
+           select a.* from autores a
+           where autor_vida(a.anio_nacimiento, a.anio_fallecimiento) @> :anio
+           order by a.nombre
+           """, nativeQuery = true)
+    List<Autor> autoresVivosEn(@Param("anio") int anio);
+
+    // Vivos en al menos un año de [desde, hasta]
+    @Query(value = """
+           select a.* from autores a
+           where autor_vida(a.anio_nacimiento, a.anio_fallecimiento) && int4range(:desde, :hasta, '[]')
+           order by a.nombre
+           """, nativeQuery = true)
+    List<Autor> autoresVivosEntre(@Param("desde") int desde, @Param("hasta") int hasta);
+
+    interface FilaVivosPorAnio {
+        Number getAnio();
+        Number getVivos();
+    }
+
+    // Cantidad de autores vivos para cada año de [desde, hasta] en una sola consulta
+    @Query(value = """
+           select g.anio as anio, count(a.id) as vivos
+           from generate_series(:desde, :hasta) as g(anio)
+           left join autores a on autor_vida(a.anio_nacimiento, a.anio_fallecimiento) @> g.anio
+           group by g.anio
+           order by g.anio
+           """, nativeQuery = true)
+    List<FilaVivosPorAnio> contarVivosPorAnio(@Param("desde") int desde, @Param("hasta") int hasta);
 
     // Rangos
     List<Autor> findByAnioNacimientoBetween(Integer desde, Integer hasta);
 
     List<Autor> findByAnioFallecimientoBetween(Integer desde, Integer hasta);
+
+    // ===== Paginación por keyset (nombre, id) =====
+    // La primera página usa ("", 0); el tamaño viaja en el Pageable (página 0 = LIMIT).
+    // Comparación de filas: el índice de 'nombre' arranca en la última fila vista en lugar de filtrar con un OR
+
+    @Query("""
+           select a from Autor a
+           where (a.nombre, a.id) > (:nombre, :id)
+           order by a.nombre, a.id
+           """)
+    List<Autor> paginaDespuesDe(@Param("nombre") String nombre, @Param("id") long id, Pageable limite);
+
+    @Query(value = """
+           select a.* from autores a
+           where autor_vida(a.anio_nacimiento, a.anio_fallecimiento) @> :anio
+             and (a.nombre, a.id) > (:nombre, :id)
+           order by a.nombre, a.id
+           """, nativeQuery = true)
+    List<Autor> paginaVivosEnDespuesDe(@Param("anio") int anio,
+                                       @Param("nombre") String nombre,
+                                       @Param("id") long id,
+                                       Pageable limite);
+
+    @Query("""
+           select a from Autor a
+           where a.anioNacimiento between :desde and :hasta
+             and (a.nombre, a.id) > (:nombre, :id)
+           order by a.nombre, a.id
+           """)
+    List<Autor> paginaNacidosEntreDespuesDe(@Param("desde") int desde,
+                                            @Param("hasta") int hasta,
+                                            @Param("nombre") String nombre,
+                                            @Param("id") long id,
+                                            Pageable limite);
+
+    @Query("""
+           select a from Autor a
+           where a.anioFallecimiento between :desde and :hasta
+             and (a.nombre, a.id) > (:nombre, :id)
+           order by a.nombre, a.id
+           """)
+    List<Autor> paginaFallecidosEntreDespuesDe(@Param("desde") int desde,
+                                               @Param("hasta") int hasta,
+                                               @Param("nombre") String nombre,
+                                               @Param("id") long id,
+                                               Pageable limite);
 }
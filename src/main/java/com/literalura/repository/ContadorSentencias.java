@@ -0,0 +1,32 @@
+package com.literalura.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate, por hilo y en total.
+ * Se registra con 'hibernate.session_factory.statement_inspector'; los contadores son estáticos porque
+ * Hibernate crea su propia instancia. Un lote JDBC cuenta una vez (se prepara una sola sentencia).
+ */
+public class ContadorSentencias implements StatementInspector {
+
+    private static final ThreadLocal<long[]> DEL_HILO = ThreadLocal.withInitial(() -> new long[1]);
+    private static final LongAdder TOTAL = new LongAdder();
+
+    @Override
+    public String inspect(String sql) {
+        DEL_HILO.get()[0]++;
+        TOTAL.increment();
+        return sql;
+    }
+
+    /** Sentencias preparadas por este hilo desde que arrancó (restar dos lecturas da las de una operación). */
+    public static long delHilo() {
+        return DEL_HILO.get()[0];
+    }
+
+    public static long total() {
+        return TOTAL.sum();
+    }
+}
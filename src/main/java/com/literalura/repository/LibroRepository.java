@@ -1,25 +1,212 @@
 package com.literalura.repository;
 
 import com.literalura.domain.Libro;
+import com.literalura.domain.LibroResumen;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface LibroRepository extends JpaRepository<Libro, Long> {
 
+    // Agregados de descargas calculados en una sola pasada (libros sin descargas cuentan como 0)
+    String AGREGADOS_DESCARGAS = """
+            count(*) as cantidad,
+            coalesce(sum(coalesce(l.descargas, 0)), 0) as suma,
+            min(coalesce(l.descargas, 0)) as minimo,
+            max(coalesce(l.descargas, 0)) as maximo,
+            avg(coalesce(l.descargas, 0)) as promedio,
+            percentile_cont(0.5) within group (order by coalesce(l.descargas, 0)) as p50,
+            percentile_cont(0.9) within group (order by coalesce(l.descargas, 0)) as p90,
+            percentile_cont(0.99) within group (order by coalesce(l.descargas, 0)) as p99
+            """;
+
+    /** Fila de resumen de libro leída con SQL nativo (alias en minúsculas). */
+    interface FilaResumen {
+        Number getId();
+        String getTitulo();
+        String getAutor();
+        String getIdioma();
+        Number getDescargas();
+    }
+
+    /** Fila de agregados; los tipos numéricos dependen del driver, por eso se exponen como Number. */
+    interface FilaEstadisticas {
+        String getClave();
+        Number getCantidad();
+        Number getSuma();
+        Number getMinimo();
+        Number getMaximo();
+        Number getPromedio();
+        Number getP50();
+        Number getP90();
+        Number getP99();
+    }
+
+    // Los listados de entidades traen el autor principal en el mismo JOIN (grafo de entidad) para
+    // quien lo necesite dentro de la transacción; las vistas de consola usan LibroResumen
+
+    @Override
+    @EntityGraph(attributePaths = "autor")
+    List<Libro> findAll();
+
+    @EntityGraph(attributePaths = "autor")
     Optional<Libro> findTopByTituloIgnoreCase(String titulo);
 
-    Optional<Libro> findTopByTituloContainingIgnoreCaseOrderByDescargasDesc(String titulo);
+    // Resolución en bloque para los upserts por página: todos los ids de Gutenberg en una consulta
+    // (el autor es LAZY: el upsert sólo compara su id, que el proxy ya tiene)
+    @Query("select l from Libro l where l.gutenbergId in :ids")
+    List<Libro> findByGutenbergIdIn(@Param("ids") Collection<Integer> gutenbergIds);
+
+    // Filas guardadas antes de persistir el id de Gutenberg (títulos ya en minúsculas)
+    @Query("select l from Libro l where l.gutenbergId is null and lower(l.titulo) in :titulos")
+    List<Libro> findSinGutenbergIdPorTitulo(@Param("titulos") Collection<String> titulos);
 
+    // Búsqueda por fragmento del título servida por el índice trigram (idx_libros_titulo_trgm);
+    // ordena por parecido con el texto buscado y luego por descargas
+    @Query(value = """
+           select l.* from libros l
+           where lower(l.titulo) like :patron escape '!'
+           order by similarity(lower(l.titulo), :q) desc, l.descargas desc nulls last
+           limit :limite
+           """, nativeQuery = true)
+    List<Libro> buscarPorTitulo(@Param("patron") String patron, @Param("q") String q, @Param("limite") int limite);
+
+    // Los más descargados cuyo título contiene el patrón; el límite viaja en el Pageable
+    // y el autor llega en el mismo JOIN (sin un SELECT extra por libro)
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           where lower(l.titulo) like :patron escape '!'
+           order by l.descargas desc nulls last, l.id
+           """)
+    List<LibroResumen> topPorTituloContiene(@Param("patron") String patron, Pageable pageable);
+
+    @EntityGraph(attributePaths = "autor")
     List<Libro> findByIdiomaIgnoreCase(String idioma);
 
+    // ===== Vistas de lectura: LibroResumen con el autor en un único JOIN, sin entidades =====
+
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           order by l.id
+           """)
+    List<LibroResumen> listarResumenes();
+
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           where lower(l.idioma) = lower(:idioma)
+           order by l.id
+           """)
+    List<LibroResumen> resumenesPorIdioma(@Param("idioma") String idioma);
+
+    // Recorrido completo en streaming: el driver trae filas de a 500 y cada una llega como
+    // LibroResumen, sin entidades que se acumulen en el contexto de persistencia.
+    // Debe consumirse dentro de una transacción y cerrarse al terminar.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           order by l.id
+           """)
+    Stream<LibroResumen> streamResumenes();
+
+    // ===== Paginación por keyset (descargas desc, id desc) =====
+    // La primera página usa (Integer.MAX_VALUE, Long.MAX_VALUE). El tamaño viaja en el Pageable
+    // (siempre página 0: sólo aporta el LIMIT). Los libros sin descargas no entran en estos listados.
+    // El cursor va como comparación de filas: PostgreSQL la usa como condición del índice y arranca en la
+    // posición del cursor; con 'a < x or (a = x and b < y)' recorre y descarta todas las filas anteriores.
+
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           where (l.descargas, l.id) < (:descargas, :id)
+           order by l.descargas desc, l.id desc
+           """)
+    List<LibroResumen> paginaDespuesDe(@Param("descargas") int descargas, @Param("id") long id, Pageable limite);
+
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           where lower(l.idioma) = lower(:idioma)
+             and (l.descargas, l.id) < (:descargas, :id)
+           order by l.descargas desc, l.id desc
+           """)
+    List<LibroResumen> paginaPorIdiomaDespuesDe(@Param("idioma") String idioma,
+                                                @Param("descargas") int descargas,
+                                                @Param("id") long id,
+                                                Pageable limite);
+
     long countByIdiomaIgnoreCase(String idioma);
 
     // Top 10 global por descargas
+    @EntityGraph(attributePaths = "autor")
     List<Libro> findTop10ByOrderByDescargasDesc();
 
     // Top N por idioma
+    @EntityGraph(attributePaths = "autor")
     List<Libro> findByIdiomaIgnoreCaseOrderByDescargasDesc(String idioma, Pageable pageable);
+
+    // ===== Tops como resúmenes (tabla de posiciones y caché de lecturas) =====
+
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           order by l.descargas desc nulls last, l.id desc
+           """)
+    List<LibroResumen> topResumen(Pageable limite);
+
+    @Query("""
+           select new com.literalura.domain.LibroResumen(l.id, l.titulo, a.nombre, l.idioma, l.descargas)
+           from Libro l left join l.autor a
+           where lower(l.idioma) = lower(:idioma)
+           order by l.descargas desc nulls last, l.id desc
+           """)
+    List<LibroResumen> topResumenPorIdioma(@Param("idioma") String idioma, Pageable limite);
+
+    // Los K primeros de cada idioma en una sola consulta
+    @Query(value = """
+           select t.id, t.titulo, t.autor, t.idioma, t.descargas from (
+               select l.id, l.titulo, a.nombre as autor, l.idioma, l.descargas,
+                      row_number() over (partition by lower(l.idioma)
+                                         order by l.descargas desc nulls last, l.id desc) as posicion
+               from libros l left join autores a on a.id = l.autor_id
+           ) t
+           where t.posicion <= :k
+           """, nativeQuery = true)
+    List<FilaResumen> topResumenPorCadaIdioma(@Param("k") int k);
+
+    // ===== Estadísticas de descargas (agregadas en SQL) =====
+
+    @Query(value = "select cast(null as text) as clave, " + AGREGADOS_DESCARGAS + " from libros l",
+           nativeQuery = true)
+    FilaEstadisticas estadisticasGlobales();
+
+    @Query(value = "select lower(l.idioma) as clave, " + AGREGADOS_DESCARGAS
+            + " from libros l where lower(l.idioma) = lower(:idioma) group by lower(l.idioma)",
+           nativeQuery = true)
+    Optional<FilaEstadisticas> estadisticasDeIdioma(@Param("idioma") String idioma);
+
+    @Query(value = "select lower(l.idioma) as clave, " + AGREGADOS_DESCARGAS
+            + " from libros l group by lower(l.idioma) order by count(*) desc",
+           nativeQuery = true)
+    List<FilaEstadisticas> estadisticasPorIdioma();
+
+    // Cada coautor suma el libro completo (un libro de dos autores cuenta para ambos)
+    @Query(value = "select a.nombre as clave, " + AGREGADOS_DESCARGAS
+            + " from libro_autores la join libros l on l.id = la.libro_id join autores a on a.id = la.autor_id"
+            + " group by a.nombre order by sum(coalesce(l.descargas, 0)) desc",
+           nativeQuery = true)
+    List<FilaEstadisticas> estadisticasPorAutor();
 }
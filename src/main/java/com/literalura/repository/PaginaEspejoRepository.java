@@ -0,0 +1,19 @@
+package com.literalura.repository;
+
+import com.literalura.domain.PaginaEspejo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Set;
+
+public interface PaginaEspejoRepository extends JpaRepository<PaginaEspejo, Integer> {
+
+    @Query("select p.pagina from PaginaEspejo p")
+    Set<Integer> paginasCompletadas();
+
+    // Olvida el avance para volver a recorrer el catálogo completo
+    @Modifying
+    @Query("delete from PaginaEspejo p")
+    int borrarTodo();
+}
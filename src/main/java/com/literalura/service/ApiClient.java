@@ -1,49 +1,111 @@
 package com.literalura.service;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.literalura.service.dto.ApiResponseDTO;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.RequestEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import com.literalura.service.dto.DecodificadorGutendex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * Cliente HTTP de Gutendex.
+ * Todas las llamadas son GET idempotentes: pasan por el limitador de tasa global, se reintentan con
+ * espera exponencial con jitter ante fallas de red, 429 y 5xx, y un circuito corta las llamadas cuando
+ * Gutendex no está sano (si hay una respuesta en caché, aunque esté vencida, se sirve esa).
+ * Las respuestas se comparten entre quienes piden la misma URL a la vez: tratarlas como sólo lectura.
+ * Métricas por endpoint: duración de cada llamada (caché, reintentos y decodificación incluidos),
+ * de cada petición HTTP según su estado, y bytes leídos de la red.
+ */
 @Component
 public class ApiClient {
 
-    private static final String BASE = "https://gutendex.com/books";
-    private final RestTemplate restTemplate;
-    private final ObjectMapper mapper;
-    private final HttpHeaders defaultHeaders = new HttpHeaders();
+    private static final Logger log = LoggerFactory.getLogger(ApiClient.class);
 
-    public ApiClient() {
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout((int) Duration.ofSeconds(10).toMillis());
-        factory.setReadTimeout((int) Duration.ofSeconds(20).toMillis());
+    private static final String USER_AGENT = "Literalura/1.0 (+https://example.invalid)";
+    private static final Duration ESPERA_BASE = Duration.ofMillis(500);
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(10);
+    private static final Duration RETRY_AFTER_MAXIMO = Duration.ofSeconds(60);
 
-        this.restTemplate = new RestTemplate(factory);
-        this.mapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final String base;
+    private final HttpClient http;
+    private final DecodificadorGutendex decodificador = new DecodificadorGutendex();
+    private final RespuestaCache cache;
+    private final LimitadorTasa limitador;
+    private final CircuitoApi circuito;
+    private final VueloUnico<ApiResponseDTO> vuelos = new VueloUnico<>();
+    private final MeterRegistry registry;
+    private final int reintentos;
+    private final Duration timeoutBusqueda;
+    private final Duration timeoutPagina;
 
-        defaultHeaders.add(HttpHeaders.USER_AGENT, "Literalura/1.0 (+https://example.invalid)");
+    public ApiClient(RespuestaCache cache,
+                     MeterRegistry registry,
+                     @Value("${literalura.api.base-url:https://gutendex.com/books}") String base,
+                     @Value("${literalura.api.peticiones-por-segundo:5}") double peticionesPorSegundo,
+                     @Value("${literalura.api.rafaga:5}") int rafaga,
+                     @Value("${literalura.api.reintentos:3}") int reintentos,
+                     @Value("${literalura.api.timeout-conexion:PT10S}") Duration timeoutConexion,
+                     @Value("${literalura.api.timeout-busqueda:PT10S}") Duration timeoutBusqueda,
+                     @Value("${literalura.api.timeout-pagina:PT20S}") Duration timeoutPagina,
+                     @Value("${literalura.api.circuito.fallos:3}") int fallosParaAbrir,
+                     @Value("${literalura.api.circuito.espera:PT30S}") Duration esperaCircuito) {
+        this.cache = cache;
+        this.registry = registry;
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.limitador = new LimitadorTasa(peticionesPorSegundo, rafaga);
+        this.circuito = new CircuitoApi(fallosParaAbrir, esperaCircuito);
+        this.reintentos = Math.max(0, reintentos);
+        this.timeoutBusqueda = timeoutBusqueda;
+        this.timeoutPagina = timeoutPagina;
+        // Un único HttpClient: mantiene el pool de conexiones (keep-alive) y negocia HTTP/2 si el servidor lo ofrece
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeoutConexion)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        Gauge.builder("literalura.api.circuito.abierto", this, c -> c.disponible() ? 0 : 1)
+                .description("1 mientras el circuito de Gutendex está abierto")
+                .register(registry);
+        FunctionCounter.builder("literalura.api.llamadas.compartidas", this, ApiClient::getLlamadasCompartidas)
+                .description("Llamadas resueltas con la respuesta de una idéntica en curso")
+                .register(registry);
     }
 
-    /** Busca libros por texto libre (el método se encarga de codificar). */
+    /**
+     * Busca libros por texto libre (el método se encarga de codificar).
+     * La búsqueda de Gutendex no distingue mayúsculas: se normaliza para que consultas equivalentes compartan URL.
+     */
     public ApiResponseDTO searchBooks(String query) {
         try {
-            String encoded = URLEncoder.encode(query == null ? "" : query, StandardCharsets.UTF_8);
-            String url = BASE + "?search=" + encoded + "&page=1&page_size=20";
-            var req = RequestEntity.get(URI.create(url)).headers(defaultHeaders).build();
-            var resp = restTemplate.exchange(req, String.class);
-            return mapper.readValue(resp.getBody(), ApiResponseDTO.class);
+            String normalizada = query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            String encoded = URLEncoder.encode(normalizada, StandardCharsets.UTF_8);
+            return get("busqueda", base + "?search=" + encoded + "&page=1&page_size=20", timeoutBusqueda);
         } catch (Exception ex) {
-            throw new RuntimeException("Error consultando Gutendex (searchBooks): " + ex.getMessage(), ex);
+            throw error("searchBooks", ex);
         }
     }
 
@@ -52,23 +114,258 @@ public class ApiClient {
         try {
             int pageSize = Math.max(10, Math.min(limit * 2, 40)); // margen extra para elegir
             String lang = URLEncoder.encode(languageCode == null ? "" : languageCode, StandardCharsets.UTF_8);
-            String url = BASE + "?languages=" + lang + "&page=1&page_size=" + pageSize;
-            var req = RequestEntity.get(URI.create(url)).headers(defaultHeaders).build();
-            var resp = restTemplate.exchange(req, String.class);
-            return mapper.readValue(resp.getBody(), ApiResponseDTO.class);
+            return get("idioma", base + "?languages=" + lang + "&page=1&page_size=" + pageSize, timeoutBusqueda);
         } catch (Exception ex) {
-            throw new RuntimeException("Error consultando Gutendex (topByLanguage): " + ex.getMessage(), ex);
+            throw error("topByLanguage", ex);
         }
     }
 
     /** Seguir paginación por URL completa (next). */
     public ApiResponseDTO searchBooksByUrl(String url) {
         try {
-            var req = RequestEntity.get(URI.create(url)).headers(defaultHeaders).build();
-            var resp = restTemplate.exchange(req, String.class);
-            return mapper.readValue(resp.getBody(), ApiResponseDTO.class);
+            return get("siguiente", url, timeoutPagina);
+        } catch (Exception ex) {
+            throw error("searchBooksByUrl", ex);
+        }
+    }
+
+    /** Página 'numero' del catálogo completo, en orden ascendente de id (estable aunque se agreguen libros). */
+    public ApiResponseDTO paginaCatalogo(int numero) {
+        try {
+            return get("catalogo", base + "/?sort=ascending&page=" + numero, timeoutPagina);
         } catch (Exception ex) {
-            throw new RuntimeException("Error consultando Gutendex (searchBooksByUrl): " + ex.getMessage(), ex);
+            throw error("paginaCatalogo", ex);
+        }
+    }
+
+    /** URL de la primera página de libros en un idioma, para seguir luego los enlaces 'next'. */
+    public String urlPorIdioma(String idioma) {
+        return base + "/?languages=" + URLEncoder.encode(idioma.trim(), StandardCharsets.UTF_8);
+    }
+
+    /** false mientras el circuito esté abierto: las llamadas fallarían al instante. */
+    public boolean disponible() {
+        return circuito.getEstado() != CircuitoApi.Estado.ABIERTO;
+    }
+
+    /** Llamadas resueltas compartiendo una idéntica que ya estaba en curso. */
+    public long getLlamadasCompartidas() {
+        return vuelos.getCompartidas();
+    }
+
+    // Una sola llamada en curso por URL normalizada; quienes lleguen mientras tanto comparten la respuesta
+    private ApiResponseDTO get(String endpoint, String url, Duration timeout) throws IOException, InterruptedException {
+        String clave = RespuestaCache.normalizar(url);
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            ApiResponseDTO resp = vuelos.ejecutar(clave, () -> cache.habilitada()
+                    ? getConCache(endpoint, url, clave, timeout)
+                    : getSinCache(endpoint, url, timeout));
+            resultado = "ok";
+            return resp;
+        } finally {
+            Timer.builder("literalura.api.llamadas")
+                    .description("Llamadas a Gutendex de punta a punta")
+                    .tags("endpoint", endpoint, "resultado", resultado)
+                    .register(registry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ApiResponseDTO getConCache(String endpoint, String url, String clave, Duration timeout)
+            throws IOException, InterruptedException {
+        RespuestaCache.Entrada previa = cache.obtener(clave).orElse(null);
+        if (previa != null && cache.vigente(previa)) {
+            cache.registrarAcierto();
+            return decodificador.pagina(previa.cuerpo());
+        }
+
+        // Entrada vencida con validadores: pedido condicional, un 304 reutiliza el cuerpo guardado
+        HttpRequest.Builder req = peticion(url, timeout);
+        if (previa != null && previa.etag() != null) req.header("If-None-Match", previa.etag());
+        if (previa != null && previa.lastModified() != null) req.header("If-Modified-Since", previa.lastModified());
+
+        HttpResponse<InputStream> resp;
+        try {
+            resp = enviar(endpoint, req.build());
+        } catch (ApiNoDisponibleException e) {
+            if (previa == null) throw e;
+            // Mejor una respuesta vencida que ninguna mientras Gutendex no responde
+            log.warn("Gutendex no disponible, se usa la respuesta en caché de {}", url);
+            cache.registrarVencidaServida();
+            return decodificador.pagina(previa.cuerpo());
+        }
+        try (InputStream raw = contado(endpoint, resp.body())) {
+            if (resp.statusCode() == 304 && previa != null) {
+                cache.registrarRevalidacion();
+                cache.guardar(clave, previa.renovada());
+                return decodificador.pagina(previa.cuerpo());
+            }
+            cache.registrarFallo();
+            byte[] cuerpo = descomprimir(raw, resp).readAllBytes();
+            cache.guardar(clave, new RespuestaCache.Entrada(cuerpo,
+                    resp.headers().firstValue("ETag").orElse(null),
+                    resp.headers().firstValue("Last-Modified").orElse(null),
+                    System.currentTimeMillis()));
+            return decodificador.pagina(cuerpo);
         }
     }
+
+    // Sin caché: decodifica directamente desde el stream de la respuesta, sin copiar el cuerpo a un String
+    private ApiResponseDTO getSinCache(String endpoint, String url, Duration timeout)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> resp = enviar(endpoint, peticion(url, timeout).build());
+        try (InputStream raw = contado(endpoint, resp.body())) {
+            return decodificador.pagina(descomprimir(raw, resp));
+        }
+    }
+
+    /**
+     * Envía el GET con límite de tasa, reintentos y circuito. Devuelve sólo respuestas 2xx o 304;
+     * un 4xx (salvo 429) es un error del pedido y no se reintenta.
+     */
+    private HttpResponse<InputStream> enviar(String endpoint, HttpRequest req) throws IOException, InterruptedException {
+        boolean prueba = circuito.permitir();
+        boolean informado = false;
+        try {
+            for (int intento = 0; ; intento++) {
+                limitador.adquirir();
+                HttpResponse<InputStream> resp = null;
+                IOException causa = null;
+                long inicio = System.nanoTime();
+                try {
+                    resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+                } catch (IOException e) {
+                    causa = e; // incluye HttpTimeoutException
+                }
+                // Hasta recibir los encabezados: el cuerpo se lee después, en streaming
+                Timer.builder("literalura.api.peticiones")
+                        .description("Peticiones HTTP a Gutendex (cada reintento cuenta) por estado")
+                        .tags("endpoint", endpoint,
+                                "estado", resp != null ? String.valueOf(resp.statusCode()) : causa.getClass().getSimpleName())
+                        .register(registry)
+                        .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+                Duration pausa = null;
+                String motivo;
+                if (resp != null) {
+                    int estado = resp.statusCode();
+                    if (estado / 100 == 2 || estado == 304) {
+                        limitador.exito();
+                        circuito.exito();
+                        informado = true;
+                        return resp;
+                    }
+                    resp.body().close();
+                    if (estado != 429 && estado < 500) {
+                        circuito.exito();
+                        informado = true;
+                        throw new IOException("HTTP " + estado + " en " + req.uri());
+                    }
+                    if (estado == 429) {
+                        pausa = retryAfter(resp).orElse(ESPERA_BASE);
+                        limitador.frenar(pausa);
+                    }
+                    motivo = "HTTP " + estado;
+                } else {
+                    motivo = causa.getClass().getSimpleName() + (causa.getMessage() == null ? "" : ": " + causa.getMessage());
+                }
+
+                if (intento >= reintentos) {
+                    circuito.fallo();
+                    informado = true;
+                    throw new ApiNoDisponibleException("Gutendex no respondió tras " + (intento + 1)
+                            + " intentos (" + motivo + ") en " + req.uri(), causa);
+                }
+                Duration espera = esperaConJitter(intento);
+                if (pausa != null && pausa.compareTo(espera) > 0) espera = pausa;
+                log.debug("Reintento {} de {} en {} ms ({})", intento + 1, req.uri(), espera.toMillis(), motivo);
+                Thread.sleep(espera.toMillis());
+            }
+        } finally {
+            // Una prueba del circuito que sale por interrupción o por un error inesperado libera su lugar
+            if (prueba && !informado) circuito.liberarPrueba();
+        }
+    }
+
+    // Espera exponencial con "full jitter": aleatoria entre 0 y base * 2^intento (acotada)
+    private static Duration esperaConJitter(int intento) {
+        long techo = Math.min(ESPERA_MAXIMA.toMillis(), ESPERA_BASE.toMillis() << Math.min(intento, 16));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(techo + 1));
+    }
+
+    // Retry-After admite segundos o una fecha HTTP
+    private static Optional<Duration> retryAfter(HttpResponse<?> resp) {
+        return resp.headers().firstValue("Retry-After").map(v -> {
+            try {
+                return Duration.ofSeconds(Long.parseLong(v.trim()));
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime cuando = ZonedDateTime.parse(v.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Duration.between(ZonedDateTime.now(cuando.getZone()), cuando);
+                } catch (RuntimeException ignorada) {
+                    return ESPERA_BASE;
+                }
+            }
+        }).map(d -> d.isNegative() ? Duration.ZERO : d.compareTo(RETRY_AFTER_MAXIMO) > 0 ? RETRY_AFTER_MAXIMO : d);
+    }
+
+    private static HttpRequest.Builder peticion(String url, Duration timeout) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+    }
+
+    // Cuenta los bytes que llegan por la red (comprimidos, si vienen en gzip) y los registra al cerrar
+    private InputStream contado(String endpoint, InputStream raw) {
+        DistributionSummary bytes = DistributionSummary.builder("literalura.api.bytes")
+                .description("Bytes leídos de Gutendex por respuesta")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .register(registry);
+        return new FilterInputStream(raw) {
+            private long leidos;
+            private boolean registrado;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) leidos++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = super.read(buf, off, len);
+                if (n > 0) leidos += n;
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!registrado) {
+                    registrado = true;
+                    bytes.record(leidos);
+                }
+                super.close();
+            }
+        };
+    }
+
+    private static InputStream descomprimir(InputStream raw, HttpResponse<?> resp) throws IOException {
+        boolean gzip = resp.headers().firstValue("Content-Encoding")
+                .map(v -> v.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(raw) : raw;
+    }
+
+    private static RuntimeException error(String operacion, Exception ex) {
+        if (ex instanceof InterruptedException) Thread.currentThread().interrupt();
+        if (ex instanceof ApiNoDisponibleException nd) return nd;
+        return new RuntimeException("Error consultando Gutendex (" + operacion + "): " + ex.getMessage(), ex);
+    }
 }
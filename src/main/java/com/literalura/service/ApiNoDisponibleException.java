@@ -0,0 +1,16 @@
+package com.literalura.service;
+
+/**
+ * Gutendex no respondió (reintentos agotados) o el circuito está abierto.
+ * Quien llama puede recurrir a la DB local en lugar de fallar.
+ */
+public class ApiNoDisponibleException extends RuntimeException {
+
+    public ApiNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+
+    public ApiNoDisponibleException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
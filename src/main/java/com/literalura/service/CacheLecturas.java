@@ -0,0 +1,148 @@
+package com.literalura.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.literalura.domain.LibroResumen;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de las lecturas calientes: top global, top N por idioma y conteo por idioma.
+ * Sólo cambian cuando se guarda un libro, así que no vencen por tiempo: cada escritura confirmada
+ * invalida únicamente las entradas del idioma afectado cuyo resultado puede cambiar.
+ * Una carga en curso no figura entre las entradas: cada idioma lleva una generación que la invalidación
+ * incrementa antes de quitar, y la carga que la ve cambiar no deja su resultado (leído antes del commit).
+ */
+@Component
+public class CacheLecturas {
+
+    private static final String GLOBAL = "*";
+
+    /**
+     * Un libro escrito (estado ya guardado) y, si no es nuevo, su idioma y descargas anteriores.
+     * 'version' sigue el orden de los commits para un mismo libro (ver {@link TablaPosiciones#siguienteVersion()}).
+     */
+    public record CambioLibro(LibroResumen libro, boolean nuevo, String idiomaAnterior, Integer descargasAnteriores,
+                              long version) {
+
+        CambioLibro conVersion(long v) {
+            return new CambioLibro(libro, nuevo, idiomaAnterior, descargasAnteriores, v);
+        }
+    }
+
+    private record ClaveTop(String idioma, int n) {}
+
+    private final Cache<ClaveTop, List<LibroResumen>> tops;
+    private final Cache<String, Long> conteos;
+    private final AtomicLong invalidaciones = new AtomicLong();
+    private final Map<String, AtomicLong> generaciones = new ConcurrentHashMap<>();
+    private final AtomicLong generacionTodo = new AtomicLong();
+
+    public CacheLecturas(@Value("${literalura.cache-lecturas.max-entradas:1000}") long maxEntradas) {
+        this.tops = Caffeine.newBuilder().maximumSize(maxEntradas).recordStats().build();
+        this.conteos = Caffeine.newBuilder().maximumSize(maxEntradas).recordStats().build();
+    }
+
+    public List<LibroResumen> topGlobal(int n, Supplier<List<LibroResumen>> cargar) {
+        return cargar(tops, new ClaveTop(GLOBAL, n), GLOBAL, k -> List.copyOf(cargar.get()));
+    }
+
+    public List<LibroResumen> topIdioma(String idioma, int n, Supplier<List<LibroResumen>> cargar) {
+        String i = normalizar(idioma);
+        return cargar(tops, new ClaveTop(i, n), i, k -> List.copyOf(cargar.get()));
+    }
+
+    public long conteoIdioma(String idioma, LongSupplier cargar) {
+        String i = normalizar(idioma);
+        return cargar(conteos, i, i, k -> cargar.getAsLong());
+    }
+
+    // Si el idioma se invalidó mientras tanto, el valor se devuelve pero no queda en la caché
+    private <K, V> V cargar(Cache<K, V> cache, K clave, String idioma, Function<K, V> cargador) {
+        long generacion = generacion(idioma);
+        V valor = cache.get(clave, cargador);
+        if (generacion(idioma) != generacion) cache.asMap().remove(clave, valor);
+        return valor;
+    }
+
+    private long generacion(String idioma) {
+        return generacionTodo.get() + generaciones.computeIfAbsent(idioma, k -> new AtomicLong()).get();
+    }
+
+    private void nuevaGeneracion(String idioma) {
+        generaciones.computeIfAbsent(idioma, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /** Invalida lo que estos cambios (ya confirmados) pueden alterar. */
+    public void invalidar(Collection<CambioLibro> cambios) {
+        for (CambioLibro c : cambios) {
+            String nuevo = normalizar(c.libro().idioma());
+            String anterior = c.nuevo() ? null : normalizar(c.idiomaAnterior());
+            boolean cambioIdioma = !c.nuevo() && !Objects.equals(nuevo, anterior);
+
+            nuevaGeneracion(GLOBAL);
+            nuevaGeneracion(nuevo);
+            if (cambioIdioma) nuevaGeneracion(anterior);
+
+            if (c.nuevo() || cambioIdioma) quitarConteo(nuevo);
+            if (cambioIdioma) quitarConteo(anterior);
+
+            tops.asMap().entrySet().removeIf(e -> {
+                ClaveTop clave = e.getKey();
+                boolean idiomaAfectado = clave.idioma().equals(GLOBAL)
+                        || clave.idioma().equals(nuevo)
+                        || (cambioIdioma && clave.idioma().equals(anterior));
+                if (!idiomaAfectado || !puedeAlterar(e.getValue(), clave, c.libro())) return false;
+                invalidaciones.incrementAndGet();
+                return true;
+            });
+        }
+    }
+
+    public void invalidarTodo() {
+        generacionTodo.incrementAndGet();
+        tops.invalidateAll();
+        conteos.invalidateAll();
+        invalidaciones.incrementAndGet();
+    }
+
+    public CacheStats estadisticasTops() { return tops.stats(); }
+    public CacheStats estadisticasConteos() { return conteos.stats(); }
+    public long getInvalidaciones() { return invalidaciones.get(); }
+
+    Cache<?, ?> cacheTops() { return tops; }
+    Cache<?, ?> cacheConteos() { return conteos; }
+
+    // Un top cambia si el libro ya estaba en él, si le falta gente o si el libro supera al último
+    private static boolean puedeAlterar(List<LibroResumen> top, ClaveTop clave, LibroResumen libro) {
+        if (top.size() < clave.n()) return true;
+        for (LibroResumen l : top) {
+            if (Objects.equals(l.id(), libro.id())) return true;
+        }
+        int ultimo = descargas(top.get(top.size() - 1).descargas());
+        return descargas(libro.descargas()) >= ultimo;
+    }
+
+    // Sólo un conteo ya cargado: quitar uno en curso esperaría a la consulta, y ése lo descarta su generación
+    private void quitarConteo(String idioma) {
+        if (conteos.asMap().get(idioma) != null && conteos.asMap().remove(idioma) != null) {
+            invalidaciones.incrementAndGet();
+        }
+    }
+
+    private static int descargas(Integer d) {
+        return d == null ? 0 : d;
+    }
+
+    private static String normalizar(String idioma) {
+        return idioma == null ? "" : idioma.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,419 @@
+package com.literalura.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.literalura.service.dto.ApiAuthorDTO;
+import com.literalura.service.dto.ApiBookDTO;
+import com.literalura.service.dto.DecodificadorGutendex;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Carga masiva offline desde un volcado local con el formato de Gutendex: páginas (ApiResponseDTO)
+ * concatenadas o NDJSON de libros (ApiBookDTO), opcionalmente en gzip.
+ * El archivo se lee libro a libro con el JsonParser de Jackson y cada libro viaja con COPY a una tabla
+ * temporal mientras se lee: la memoria no depende del tamaño del archivo, sólo de los autores distintos,
+ * que se deduplican en memoria. Después unas pocas sentencias resuelven ids y escriben autores, libros,
+ * libro_autores y libro_idiomas, todo en una transacción.
+ * A diferencia del upsert por página, los libros antiguos sin id de Gutenberg no se reconocen por título.
+ */
+@Service
+public class CargaMasiva {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaMasiva.class);
+
+    // Igual que allocationSize en Autor y Libro: cada nextval es el techo de un bloque de 50 ids
+    private static final int BLOQUE_IDS = 50;
+    private static final int BYTES_POR_ENVIO = 1 << 16;
+    private static final Set<String> CAMPOS_PAGINA = Set.of("count", "next", "previous", "results");
+
+    private final DataSource dataSource;
+    private final CacheLecturas cacheLecturas;
+    private final TablaPosiciones posiciones;
+    private final DecodificadorGutendex decodificador = new DecodificadorGutendex();
+
+    public CargaMasiva(DataSource dataSource, CacheLecturas cacheLecturas, TablaPosiciones posiciones) {
+        this.dataSource = dataSource;
+        this.cacheLecturas = cacheLecturas;
+        this.posiciones = posiciones;
+    }
+
+    public ResultadoCargaMasiva cargar(Path archivo) {
+        long inicio = System.nanoTime();
+        ResultadoCargaMasiva r;
+        try (Connection con = dataSource.getConnection()) {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try {
+                r = cargar(con, archivo, inicio);
+                con.commit();
+            } catch (IOException | SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo leer el volcado " + archivo + ": " + e.getMessage(), e);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error en la carga masiva: " + e.getMessage(), e);
+        }
+        // Lo confirmado cambia tops y conteos de cualquier idioma: se descartan y se reconstruyen
+        cacheLecturas.invalidarTodo();
+        posiciones.reconstruirTodo();
+        log.info("Carga masiva de {}: {} libros ({} nuevos) en {} ms",
+                archivo, r.libros(), r.nuevos(), r.duracion().toMillis());
+        return r;
+    }
+
+    private ResultadoCargaMasiva cargar(Connection con, Path archivo, long inicio) throws IOException, SQLException {
+        try (Statement st = con.createStatement()) {
+            // Sin escrituras concurrentes mientras dure la carga (las lecturas siguen)
+            st.execute("lock table autores, libros in share row exclusive mode");
+            st.execute("""
+                    create temp table carga_autores (
+                        clave text primary key, nombre text not null,
+                        anio_nacimiento integer, anio_fallecimiento integer,
+                        id bigint, nuevo boolean not null default false
+                    ) on commit drop""");
+            st.execute("""
+                    create temp table carga_libros (
+                        orden integer not null, gutenberg_id integer not null, titulo text not null,
+                        idiomas text[] not null, descargas integer not null, autores text[] not null,
+                        id bigint, nuevo boolean not null default false,
+                        cambia_fila boolean not null default false,
+                        cambian_autores boolean not null default false,
+                        cambian_idiomas boolean not null default false
+                    ) on commit drop""");
+        }
+
+        Lectura lectura = new Lectura(new FilasCopy(con,
+                "copy carga_libros (orden, gutenberg_id, titulo, idiomas, descargas, autores) from stdin"));
+        leerLibros(archivo, lectura);
+        Map<String, AutorLeido> autores = lectura.autores;
+        copiarAutores(con, autores);
+
+        try (Statement st = con.createStatement()) {
+            // Un libro repetido en el volcado: gana su última aparición
+            int duplicados = st.executeUpdate("""
+                    delete from carga_libros c using carga_libros d
+                    where d.gutenberg_id = c.gutenberg_id and d.orden > c.orden""");
+            st.execute("analyze carga_libros, carga_autores");
+
+            // ===== Autores: mismo nombre exacto, o el mismo sin distinguir mayúsculas (como el upsert) =====
+            st.executeUpdate("update carga_autores s set id = a.id from autores a where a.nombre = s.nombre");
+            st.executeUpdate("""
+                    update carga_autores s set id = a.id
+                    from (select lower(nombre) as clave, min(id) as id from autores group by lower(nombre)) a
+                    where s.id is null and a.clave = s.clave""");
+            int autoresNuevos = asignarIds(st, "carga_autores", "clave", "autores_seq");
+            st.executeUpdate("""
+                    insert into autores (id, nombre, anio_nacimiento, anio_fallecimiento)
+                    select id, nombre, anio_nacimiento, anio_fallecimiento from carga_autores where nuevo""");
+            st.executeUpdate("""
+                    update autores a
+                    set anio_nacimiento = coalesce(a.anio_nacimiento, s.anio_nacimiento),
+                        anio_fallecimiento = coalesce(a.anio_fallecimiento, s.anio_fallecimiento)
+                    from carga_autores s
+                    where a.id = s.id and not s.nuevo
+                      and ((a.anio_nacimiento is null and s.anio_nacimiento is not null)
+                        or (a.anio_fallecimiento is null and s.anio_fallecimiento is not null))""");
+
+            // ===== Libros: por id de Gutenberg; los nuevos toman ids de libros_seq =====
+            st.executeUpdate("update carga_libros s set id = l.id from libros l where l.gutenberg_id = s.gutenberg_id");
+            int nuevos = asignarIds(st, "carga_libros", "gutenberg_id", "libros_seq");
+            st.executeUpdate("""
+                    insert into libros (id, gutenberg_id, titulo, idioma, descargas, autor_id)
+                    select s.id, s.gutenberg_id, s.titulo, s.idiomas[1], s.descargas, a.id
+                    from carga_libros s left join carga_autores a on a.clave = s.autores[1]
+                    where s.nuevo""");
+
+            // ===== Libros existentes: sólo se escribe lo que difiere del volcado =====
+            st.executeUpdate("""
+                    update carga_libros s set cambia_fila = true
+                    from libros l
+                    where l.id = s.id and not s.nuevo
+                      and (l.titulo, l.idioma, l.descargas, l.autor_id)
+                          is distinct from (s.titulo, s.idiomas[1], s.descargas,
+                                            (select a.id from carga_autores a where a.clave = s.autores[1]))""");
+            // Listas completas en orden de posición; sin filas, array_agg da null en ambos lados
+            st.executeUpdate("""
+                    update carga_libros s set cambian_autores = true
+                    where not s.nuevo
+                      and (select array_agg(la.autor_id order by la.posicion)
+                           from libro_autores la where la.libro_id = s.id)
+                          is distinct from
+                          (select array_agg(a.id order by u.posicion)
+                           from unnest(s.autores) with ordinality as u(clave, posicion)
+                           join carga_autores a on a.clave = u.clave)""");
+            st.executeUpdate("""
+                    update carga_libros s set cambian_idiomas = true
+                    where not s.nuevo
+                      and (select array_agg(li.idioma::text order by li.posicion)
+                           from libro_idiomas li where li.libro_id = s.id)
+                          is distinct from (case when cardinality(s.idiomas) = 0 then null else s.idiomas end)""");
+
+            st.executeUpdate("""
+                    update libros l
+                    set titulo = s.titulo, idioma = s.idiomas[1], descargas = s.descargas, autor_id = a.id
+                    from carga_libros s left join carga_autores a on a.clave = s.autores[1]
+                    where l.id = s.id and s.cambia_fila""");
+            st.executeUpdate("""
+                    delete from libro_autores la using carga_libros s
+                    where la.libro_id = s.id and s.cambian_autores""");
+            st.executeUpdate("""
+                    delete from libro_idiomas li using carga_libros s
+                    where li.libro_id = s.id and s.cambian_idiomas""");
+            st.executeUpdate("""
+                    insert into libro_autores (libro_id, autor_id, posicion)
+                    select s.id, a.id, u.posicion - 1
+                    from carga_libros s
+                    cross join lateral unnest(s.autores) with ordinality as u(clave, posicion)
+                    join carga_autores a on a.clave = u.clave
+                    where s.nuevo or s.cambian_autores""");
+            st.executeUpdate("""
+                    insert into libro_idiomas (libro_id, idioma, posicion)
+                    select s.id, u.idioma, u.posicion - 1
+                    from carga_libros s
+                    cross join lateral unnest(s.idiomas) with ordinality as u(idioma, posicion)
+                    where s.nuevo or s.cambian_idiomas""");
+            int actualizados;
+            try (ResultSet rs = st.executeQuery(
+                    "select count(*) from carga_libros where cambia_fila or cambian_autores or cambian_idiomas")) {
+                rs.next();
+                actualizados = rs.getInt(1);
+            }
+
+            Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+            return new ResultadoCargaMasiva(lectura.libros - duplicados, duplicados, lectura.omitidos,
+                    nuevos, actualizados, autores.size(), autoresNuevos, duracion);
+        }
+    }
+
+    /**
+     * Da ids a las filas de staging que aún no tienen (y las marca como nuevas), tomando bloques enteros
+     * de la secuencia de Hibernate: cada nextval reserva [techo - 49, techo], que Hibernate ya no reparte.
+     * Un techo menor que 50 (secuencia recién creada) no es un bloque completo y se descarta.
+     */
+    private static int asignarIds(Statement st, String tabla, String clave, String secuencia) throws SQLException {
+        int faltan;
+        try (ResultSet rs = st.executeQuery("select count(*) from " + tabla + " where id is null")) {
+            rs.next();
+            faltan = rs.getInt(1);
+        }
+        if (faltan == 0) return 0;
+        int bloques = (faltan + BLOQUE_IDS - 1) / BLOQUE_IDS + 1;
+        return st.executeUpdate("""
+                update %1$s s set id = b.techo - %4$d + 1 + (n.fila - 1) %% %4$d, nuevo = true
+                from (select %2$s, row_number() over (order by %2$s) as fila from %1$s where id is null) n
+                join (select row_number() over (order by techo) as bloque, techo
+                      from (select nextval('%3$s') as techo from generate_series(1, %5$d)) t
+                      where techo >= %4$d) b
+                  on b.bloque = (n.fila - 1) / %4$d + 1
+                where s.%2$s = n.%2$s""".formatted(tabla, clave, secuencia, BLOQUE_IDS, bloques));
+    }
+
+    // ================= Lectura del volcado =================
+
+    /** Autor tal como aparece por primera vez; los años faltantes se completan con apariciones posteriores. */
+    private static final class AutorLeido {
+        final String nombre;
+        Integer nacimiento, fallecimiento;
+
+        AutorLeido(String nombre, Integer nacimiento, Integer fallecimiento) {
+            this.nombre = nombre;
+            this.nacimiento = nacimiento;
+            this.fallecimiento = fallecimiento;
+        }
+    }
+
+    private void leerLibros(Path archivo, Lectura lectura) throws IOException, SQLException {
+        try (InputStream in = abrir(archivo);
+             JsonParser p = decodificador.parser(in)) {
+            JsonToken t;
+            while ((t = p.nextToken()) != null) {
+                // Raíz: un libro (NDJSON), una página de Gutendex o un arreglo de libros
+                if (t == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) lectura.agregar(decodificador.libro(p));
+                } else if (t != JsonToken.START_OBJECT) {
+                    throw new IOException("Se esperaba un objeto JSON en " + p.currentLocation());
+                } else if (p.nextToken() == JsonToken.FIELD_NAME && !CAMPOS_PAGINA.contains(p.currentName())) {
+                    lectura.agregar(decodificador.libro(p)); // sigue desde el primer campo
+                } else {
+                    // Página: de 'results' se leen los libros de a uno, el resto se salta
+                    while (p.currentToken() == JsonToken.FIELD_NAME) {
+                        String campo = p.currentName();
+                        if (p.nextToken() == JsonToken.START_ARRAY && campo.equals("results")) {
+                            while (p.nextToken() == JsonToken.START_OBJECT) lectura.agregar(decodificador.libro(p));
+                        } else {
+                            p.skipChildren();
+                        }
+                        p.nextToken();
+                    }
+                }
+            }
+            lectura.filas.terminar();
+        } catch (IOException | SQLException | RuntimeException e) {
+            lectura.filas.cancelar();
+            throw e;
+        }
+    }
+
+    /** Estado de la lectura: cada libro se escribe en el COPY en cuanto se decodifica. */
+    private static final class Lectura {
+        final FilasCopy filas;
+        final Map<String, AutorLeido> autores = new HashMap<>();
+        int libros, omitidos;
+
+        Lectura(FilasCopy filas) {
+            this.filas = filas;
+        }
+
+        void agregar(ApiBookDTO dto) throws SQLException {
+            if (!dto.tieneId()) {
+                omitidos++;
+                return;
+            }
+            // Mismos criterios que el upsert por página: autor por nombre sin mayúsculas, "Autor desconocido" si no hay
+            List<String> claves = new ArrayList<>();
+            List<ApiAuthorDTO> apiAutores = dto.authors().isEmpty() ? Collections.singletonList(null) : dto.authors();
+            for (ApiAuthorDTO a : apiAutores) {
+                String nombre = a != null ? (a.name() == null ? "" : a.name()) : "Autor desconocido";
+                String clave = nombre.toLowerCase(Locale.ROOT);
+                Integer nacimiento = a != null ? a.nacimiento() : null;
+                Integer fallecimiento = a != null ? a.fallecimiento() : null;
+                AutorLeido previo = autores.putIfAbsent(clave, new AutorLeido(nombre, nacimiento, fallecimiento));
+                if (previo != null) {
+                    if (previo.nacimiento == null) previo.nacimiento = nacimiento;
+                    if (previo.fallecimiento == null) previo.fallecimiento = fallecimiento;
+                }
+                if (!claves.contains(clave)) claves.add(clave);
+            }
+            List<String> idiomas = dto.languages().stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(i -> !i.isEmpty())
+                    .distinct()
+                    .toList();
+
+            filas.valor(String.valueOf(libros))
+                    .valor(String.valueOf(dto.id()))
+                    .valor(dto.title() == null ? "" : dto.title())
+                    .valor(arreglo(idiomas))
+                    .valor(String.valueOf(dto.downloadCount()))
+                    .valor(arreglo(claves))
+                    .finFila();
+            libros++;
+        }
+    }
+
+    private static void copiarAutores(Connection con, Map<String, AutorLeido> autores) throws SQLException {
+        FilasCopy filas = new FilasCopy(con,
+                "copy carga_autores (clave, nombre, anio_nacimiento, anio_fallecimiento) from stdin");
+        try {
+            for (Map.Entry<String, AutorLeido> e : autores.entrySet()) {
+                AutorLeido a = e.getValue();
+                filas.valor(e.getKey())
+                        .valor(a.nombre)
+                        .valor(a.nacimiento == null ? null : a.nacimiento.toString())
+                        .valor(a.fallecimiento == null ? null : a.fallecimiento.toString())
+                        .finFila();
+            }
+            filas.terminar();
+        } catch (SQLException | RuntimeException e) {
+            filas.cancelar();
+            throw e;
+        }
+    }
+
+    // gzip se reconoce por su número mágico, no por la extensión
+    private static InputStream abrir(Path archivo) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(archivo), BYTES_POR_ENVIO);
+        in.mark(2);
+        int b1 = in.read(), b2 = in.read();
+        in.reset();
+        return b1 == 0x1f && b2 == 0x8b ? new GZIPInputStream(in, BYTES_POR_ENVIO) : in;
+    }
+
+    // Literal de arreglo de PostgreSQL con cada elemento entre comillas
+    private static String arreglo(List<String> elementos) {
+        StringJoiner j = new StringJoiner(",", "{", "}");
+        for (String e : elementos) j.add('"' + e.replace("\\", "\\\\").replace("\"", "\\\"") + '"');
+        return j.toString();
+    }
+
+    /** Filas en el formato text de COPY, enviadas al servidor de a 64 KB mientras se arman. */
+    private static final class FilasCopy {
+        private final CopyIn copia;
+        private final StringBuilder buffer = new StringBuilder(BYTES_POR_ENVIO + 1024);
+        private boolean primeraColumna = true;
+
+        FilasCopy(Connection con, String sql) throws SQLException {
+            this.copia = con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+
+        FilasCopy valor(String v) {
+            if (!primeraColumna) buffer.append('\t');
+            primeraColumna = false;
+            if (v == null) {
+                buffer.append("\\N");
+                return this;
+            }
+            for (int i = 0; i < v.length(); i++) {
+                char c = v.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+            return this;
+        }
+
+        void finFila() throws SQLException {
+            buffer.append('\n');
+            primeraColumna = true;
+            if (buffer.length() >= BYTES_POR_ENVIO) enviar();
+        }
+
+        void terminar() throws SQLException {
+            enviar();
+            copia.endCopy();
+        }
+
+        void cancelar() {
+            try {
+                if (copia.isActive()) copia.cancelCopy();
+            } catch (SQLException e) {
+                log.debug("No se pudo cancelar el COPY: {}", e.getMessage());
+            }
+        }
+
+        private void enviar() throws SQLException {
+            if (buffer.length() == 0) return;
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copia.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.literalura.service;
+
+import java.time.Duration;
+
+/**
+ * Corta las llamadas a Gutendex tras varias fallas seguidas.
+ * Abierto: falla al instante durante 'espera'. Luego deja pasar una sola llamada de prueba (semiabierto):
+ * si sale bien se cierra, si falla vuelve a abrirse.
+ */
+class CircuitoApi {
+
+    enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int umbralFallos;
+    private final long esperaNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoDesde;
+    private boolean pruebaEnCurso;
+
+    CircuitoApi(int umbralFallos, Duration espera) {
+        this.umbralFallos = Math.max(1, umbralFallos);
+        this.esperaNanos = espera.toNanos();
+    }
+
+    /**
+     * Lanza {@link ApiNoDisponibleException} si la llamada no debe salir.
+     * Devuelve true si la llamada es la prueba del estado semiabierto: quien la recibe debe terminar con
+     * {@link #exito()}, {@link #fallo()} o {@link #liberarPrueba()}.
+     */
+    synchronized boolean permitir() {
+        if (estado == Estado.ABIERTO) {
+            long restante = esperaNanos - (System.nanoTime() - abiertoDesde);
+            if (restante > 0) {
+                throw new ApiNoDisponibleException("Gutendex no disponible (circuito abierto, reintento en "
+                        + Duration.ofNanos(restante).toSeconds() + " s)");
+            }
+            estado = Estado.SEMIABIERTO;
+            pruebaEnCurso = false;
+        }
+        if (estado == Estado.SEMIABIERTO) {
+            if (pruebaEnCurso) throw new ApiNoDisponibleException("Gutendex no disponible (probando recuperación)");
+            pruebaEnCurso = true;
+            return true;
+        }
+        return false;
+    }
+
+    /** La prueba terminó sin resultado (interrupción, error inesperado): la próxima llamada vuelve a probar. */
+    synchronized void liberarPrueba() {
+        if (estado == Estado.SEMIABIERTO) pruebaEnCurso = false;
+    }
+
+    synchronized void exito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+        pruebaEnCurso = false;
+    }
+
+    synchronized void fallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= umbralFallos) {
+            estado = Estado.ABIERTO;
+            abiertoDesde = System.nanoTime();
+            pruebaEnCurso = false;
+        }
+    }
+
+    synchronized Estado getEstado() {
+        return estado;
+    }
+}
@@ -0,0 +1,74 @@
+package com.literalura.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Tokens de continuación para la paginación por keyset.
+ * Libros: posición (descargas, id) en orden descendente. Autores: (nombre, id) ascendente.
+ * El token es Base64 URL-safe con un prefijo de tipo para rechazar tokens de otro listado.
+ */
+final class CursorKeyset {
+
+    /** Posición después del último libro entregado. */
+    record Libros(int descargas, long id) {
+        static final Libros INICIO = new Libros(Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /** Posición después del último autor entregado. */
+    record Autores(String nombre, long id) {
+        static final Autores INICIO = new Autores("", 0L);
+    }
+
+    private static final Base64.Encoder ENC = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DEC = Base64.getUrlDecoder();
+
+    private CursorKeyset() {}
+
+    static String codificar(Libros c) {
+        return codificar("L|" + c.descargas() + "|" + c.id());
+    }
+
+    static String codificar(Autores c) {
+        // El nombre va al final porque puede contener '|'
+        return codificar("A|" + c.id() + "|" + c.nombre());
+    }
+
+    static Libros libros(String token) {
+        if (token == null || token.isBlank()) return Libros.INICIO;
+        String[] p = decodificar(token).split("\\|", 3);
+        if (p.length != 3 || !p[0].equals("L")) throw invalido();
+        try {
+            return new Libros(Integer.parseInt(p[1]), Long.parseLong(p[2]));
+        } catch (NumberFormatException e) {
+            throw invalido();
+        }
+    }
+
+    static Autores autores(String token) {
+        if (token == null || token.isBlank()) return Autores.INICIO;
+        String[] p = decodificar(token).split("\\|", 3);
+        if (p.length != 3 || !p[0].equals("A")) throw invalido();
+        try {
+            return new Autores(p[2], Long.parseLong(p[1]));
+        } catch (NumberFormatException e) {
+            throw invalido();
+        }
+    }
+
+    private static String codificar(String plano) {
+        return ENC.encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificar(String token) {
+        try {
+            return new String(DEC.decode(token.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalido();
+        }
+    }
+
+    private static IllegalArgumentException invalido() {
+        return new IllegalArgumentException("Token de continuación inválido");
+    }
+}
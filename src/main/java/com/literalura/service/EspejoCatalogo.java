@@ -0,0 +1,161 @@
+package com.literalura.service;
+
+import com.literalura.domain.PaginaEspejo;
+import com.literalura.repository.PaginaEspejoRepository;
+import com.literalura.service.dto.ApiBookDTO;
+import com.literalura.service.dto.ApiResponseDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Espejo del catálogo completo de Gutendex.
+ * Calcula el rango de páginas a partir de 'count', las descarga en paralelo (con el límite de tasa global
+ * de {@link ApiClient}) y las guarda de a una, cada página en su transacción junto con su punto de control
+ * en 'espejo_paginas'. Si la corrida se corta, la siguiente sólo pide las páginas que faltan.
+ */
+@Service
+public class EspejoCatalogo {
+
+    private static final Logger log = LoggerFactory.getLogger(EspejoCatalogo.class);
+
+    private final ApiClient apiClient;
+    private final LiteraluraService service;
+    private final PaginaEspejoRepository paginaRepository;
+    private final TransactionTemplate tx;
+    private final MetricasOperaciones metricas;
+    private final int trabajadores;
+
+    public EspejoCatalogo(ApiClient apiClient,
+                          LiteraluraService service,
+                          PaginaEspejoRepository paginaRepository,
+                          PlatformTransactionManager txManager,
+                          MetricasOperaciones metricas,
+                          @Value("${literalura.espejo.trabajadores:4}") int trabajadores) {
+        this.apiClient = apiClient;
+        this.service = service;
+        this.paginaRepository = paginaRepository;
+        this.tx = new TransactionTemplate(txManager);
+        this.metricas = metricas;
+        this.trabajadores = Math.max(1, trabajadores);
+    }
+
+    /** Olvida los puntos de control: la próxima corrida recorre todo el catálogo. */
+    public int reiniciar() {
+        Integer borradas = tx.execute(status -> paginaRepository.borrarTodo());
+        return borradas == null ? 0 : borradas;
+    }
+
+    public ResultadoEspejo espejar() {
+        long inicio = System.nanoTime();
+        Set<Integer> completadas = paginaRepository.paginasCompletadas();
+
+        // La primera página da el total y el tamaño de página; se guarda como cualquier otra si falta
+        ApiResponseDTO primera = apiClient.paginaCatalogo(1);
+        List<ApiBookDTO> filasPrimera = primera == null ? List.of() : primera.results();
+        if (filasPrimera.isEmpty()) {
+            return new ResultadoEspejo(0, 0, 0, 0, 0, 0, 0, 0, Duration.ofNanos(System.nanoTime() - inicio));
+        }
+        int totalPaginas = (primera.count() + filasPrimera.size() - 1) / filasPrimera.size();
+
+        Progreso progreso = new Progreso();
+        if (completadas.contains(1)) progreso.omitidas++;
+        else guardar(1, filasPrimera, progreso);
+
+        List<Integer> pendientes = new ArrayList<>();
+        for (int p = 2; p <= totalPaginas; p++) {
+            if (completadas.contains(p)) progreso.omitidas++;
+            else pendientes.add(p);
+        }
+        log.info("Espejo de Gutendex: {} páginas, {} ya guardadas, {} pendientes ({} hilos)",
+                totalPaginas, progreso.omitidas, pendientes.size(), trabajadores);
+
+        descargarYGuardar(pendientes, progreso);
+
+        Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+        return new ResultadoEspejo(totalPaginas, progreso.guardadas, progreso.omitidas, progreso.fallidas,
+                progreso.filas, progreso.nuevos, progreso.actualizados, progreso.consultasEvitadas, duracion);
+    }
+
+    // Los hilos sólo descargan; este hilo es el único que escribe, así dos páginas nunca compiten por el mismo autor
+    private void descargarYGuardar(List<Integer> pendientes, Progreso progreso) {
+        if (pendientes.isEmpty()) return;
+        ExecutorService pool = Executors.newFixedThreadPool(trabajadores, r -> {
+            Thread t = new Thread(r, "literalura-espejo");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<PaginaDescargada> descargas = new ExecutorCompletionService<>(pool);
+        // Ventana acotada de páginas en vuelo: la descarga no se adelanta indefinidamente a la escritura
+        int ventana = trabajadores * 2;
+        Iterator<Integer> siguientes = pendientes.iterator();
+        int enVuelo = 0;
+        try {
+            while (enVuelo < ventana && siguientes.hasNext()) {
+                enviar(descargas, siguientes.next());
+                enVuelo++;
+            }
+            while (enVuelo > 0) {
+                PaginaDescargada d = descargas.take().get();
+                enVuelo--;
+                // Con el circuito abierto no se piden más páginas: quedan pendientes para la próxima corrida
+                if (siguientes.hasNext() && apiClient.disponible()) {
+                    enviar(descargas, siguientes.next());
+                    enVuelo++;
+                }
+                if (d.error() != null) {
+                    progreso.fallidas++;
+                    log.warn("No se pudo descargar la página {}: {}", d.numero(), d.error().getMessage());
+                } else {
+                    guardar(d.numero(), d.filas(), progreso);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Espejo del catálogo interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error en el espejo del catálogo: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void enviar(CompletionService<PaginaDescargada> descargas, int numero) {
+        descargas.submit(() -> {
+            try {
+                ApiResponseDTO resp = apiClient.paginaCatalogo(numero);
+                List<ApiBookDTO> filas = resp == null ? List.of() : resp.results();
+                return new PaginaDescargada(numero, filas, null);
+            } catch (RuntimeException e) {
+                return new PaginaDescargada(numero, List.of(), e);
+            }
+        });
+    }
+
+    private void guardar(int numero, List<ApiBookDTO> filas, Progreso progreso) {
+        LiteraluraService.LoteGuardado lote = metricas.medir("upsert", () -> tx.execute(status -> {
+            LiteraluraService.LoteGuardado l = service.guardarLote(filas);
+            paginaRepository.save(new PaginaEspejo(numero, filas.size()));
+            return l;
+        }), l -> l.libros().size());
+        progreso.guardadas++;
+        progreso.filas += filas.size();
+        progreso.nuevos += lote.nuevos();
+        progreso.actualizados += lote.actualizados();
+        progreso.consultasEvitadas += lote.consultasEvitadas();
+    }
+
+    private record PaginaDescargada(int numero, List<ApiBookDTO> filas, RuntimeException error) {}
+
+    // Sólo lo toca el hilo que llama a espejar()
+    private static final class Progreso {
+        int guardadas, omitidas, fallidas, filas, nuevos, actualizados, consultasEvitadas;
+    }
+}
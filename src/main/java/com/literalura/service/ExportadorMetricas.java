@@ -0,0 +1,102 @@
+package com.literalura.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporta las métricas en formato de texto de Prometheus, sin servidor web de Spring:
+ * un volcado periódico a un archivo local y, si se indica un puerto, un endpoint /metrics para el scrape.
+ * Ambos están apagados por defecto.
+ */
+@Component
+public class ExportadorMetricas {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportadorMetricas.class);
+
+    private final PrometheusMeterRegistry registry;
+    private final Path archivo;
+    private final Duration intervalo;
+    private final int puerto;
+    private ScheduledExecutorService volcados;
+    private HttpServer servidor;
+
+    public ExportadorMetricas(PrometheusMeterRegistry registry,
+                              @Value("${literalura.metricas.archivo:}") String archivo,
+                              @Value("${literalura.metricas.intervalo:PT30S}") Duration intervalo,
+                              @Value("${literalura.metricas.puerto:0}") int puerto) {
+        this.registry = registry;
+        this.archivo = (archivo == null || archivo.isBlank()) ? null : Path.of(archivo);
+        this.intervalo = intervalo;
+        this.puerto = puerto;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (archivo != null) {
+            volcados = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "literalura-metricas");
+                t.setDaemon(true);
+                return t;
+            });
+            long ms = Math.max(1000, intervalo.toMillis());
+            volcados.scheduleWithFixedDelay(this::volcar, ms, ms, TimeUnit.MILLISECONDS);
+            log.info("Métricas volcadas en {} cada {} s", archivo, ms / 1000);
+        }
+        if (puerto > 0) {
+            try {
+                servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+                servidor.createContext("/metrics", intercambio -> {
+                    byte[] cuerpo = registry.scrape().getBytes(StandardCharsets.UTF_8);
+                    intercambio.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    intercambio.sendResponseHeaders(200, cuerpo.length);
+                    try (OutputStream out = intercambio.getResponseBody()) {
+                        out.write(cuerpo);
+                    }
+                });
+                servidor.start();
+                log.info("Métricas en http://localhost:{}/metrics", puerto);
+            } catch (IOException e) {
+                log.warn("No se pudo abrir el puerto {} para las métricas: {}", puerto, e.getMessage());
+            }
+        }
+    }
+
+    // Escribe a un temporal y lo renombra: quien lea el archivo nunca ve un volcado a medias
+    void volcar() {
+        try {
+            if (archivo.getParent() != null) Files.createDirectories(archivo.getParent());
+            Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            Files.writeString(tmp, registry.scrape());
+            Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudieron volcar las métricas en {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        if (servidor != null) servidor.stop(0);
+        if (volcados != null) {
+            volcados.shutdownNow();
+            volcar(); // el último estado, con lo que haya hecho la sesión completa
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.literalura.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitador de tasa global (cubeta de tokens) compartido por todos los hilos que llaman a la API.
+ * Cada llamada reserva el siguiente turno libre y espera hasta él, sin ocupar el monitor mientras duerme.
+ * Es adaptativo: ante un 429 reduce la tasa a la mitad y respeta el Retry-After; con cada respuesta
+ * correcta la recupera de a poco hasta la tasa configurada.
+ */
+class LimitadorTasa {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    private final double tasaMaxima;
+    private final double tasaMinima;
+    private final int rafaga;
+    private double tasa;
+    private long intervaloNanos;
+    private long siguienteTurno = System.nanoTime();
+
+    /** @param porSegundo peticiones por segundo; 0 o menos = sin límite (sólo se respetan las pausas de Retry-After). */
+    LimitadorTasa(double porSegundo, int rafaga) {
+        this.tasaMaxima = Math.max(0, porSegundo);
+        this.tasaMinima = Math.min(tasaMaxima, 0.2);
+        this.rafaga = Math.max(1, rafaga);
+        fijarTasa(tasaMaxima);
+    }
+
+    void adquirir() throws InterruptedException {
+        long espera;
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            // Los turnos no usados se acumulan hasta el tamaño de la ráfaga
+            long turno = Math.max(siguienteTurno, ahora - intervaloNanos * (rafaga - 1));
+            siguienteTurno = turno + intervaloNanos;
+            espera = turno - ahora;
+        }
+        if (espera > 0) TimeUnit.NANOSECONDS.sleep(espera);
+    }
+
+    /** El servidor pidió frenar: nadie sale antes de 'pausa' y la tasa baja a la mitad. */
+    synchronized void frenar(Duration pausa) {
+        siguienteTurno = Math.max(siguienteTurno, System.nanoTime() + pausa.toNanos());
+        if (tasaMaxima > 0) fijarTasa(Math.max(tasaMinima, tasa / 2));
+    }
+
+    synchronized void exito() {
+        if (tasaMaxima > 0 && tasa < tasaMaxima) fijarTasa(Math.min(tasaMaxima, tasa + tasaMaxima / 20));
+    }
+
+    synchronized double getTasa() {
+        return tasa;
+    }
+
+    private void fijarTasa(double nueva) {
+        tasa = nueva;
+        intervaloNanos = nueva > 0 ? (long) (SEGUNDO / nueva) : 0;
+    }
+}
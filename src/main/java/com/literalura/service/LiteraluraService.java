@@ -1,46 +1,100 @@
 package com.literalura.service;
 
 import com.literalura.domain.Autor;
+import com.literalura.domain.EstadisticasDescargas;
 import com.literalura.domain.Libro;
+import com.literalura.domain.LibroResumen;
 import com.literalura.repository.AutorRepository;
 import com.literalura.repository.LibroRepository;
 import com.literalura.service.dto.ApiAuthorDTO;
 import com.literalura.service.dto.ApiBookDTO;
 import com.literalura.service.dto.ApiResponseDTO;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LiteraluraService {
 
+    private static final Logger log = LoggerFactory.getLogger(LiteraluraService.class);
+
+    // Páginas ya descargadas que pueden esperar a ser persistidas (backpressure del import)
+    private static final int PAGINAS_EN_COLA = 4;
+    // Marca de fin de la cola del import (se compara por identidad)
+    private static final List<ApiBookDTO> FIN_IMPORT = Collections.unmodifiableList(new ArrayList<>());
+
     private final AutorRepository autorRepository;
     private final LibroRepository libroRepository;
     private final ApiClient apiClient;
+    private final TransactionTemplate tx;
+    private final EntityManager em;
+    private final CacheLecturas cacheLecturas;
+    private final TablaPosiciones posiciones;
+    private final MapaAutores mapaAutores;
+    private final MetricasOperaciones metricas;
 
     public LiteraluraService(AutorRepository autorRepository,
                              LibroRepository libroRepository,
-                             ApiClient apiClient) {
+                             ApiClient apiClient,
+                             PlatformTransactionManager txManager,
+                             EntityManager em,
+                             CacheLecturas cacheLecturas,
+                             TablaPosiciones posiciones,
+                             MapaAutores mapaAutores,
+                             MetricasOperaciones metricas) {
         this.autorRepository = autorRepository;
         this.libroRepository = libroRepository;
         this.apiClient = apiClient;
+        this.tx = new TransactionTemplate(txManager);
+        this.em = em;
+        this.cacheLecturas = cacheLecturas;
+        this.posiciones = posiciones;
+        this.mapaAutores = mapaAutores;
+        this.metricas = metricas;
     }
 
     // ================= Búsquedas / Guardado =================
 
-    @Transactional
-    public Libro buscarYGuardarLibroPorTitulo(String titulo) {
+    // Los métodos públicos devuelven LibroResumen (armado dentro de la transacción): el autor es LAZY
+    // y las entidades no deben salir de aquí para imprimirse.
+    // Las operaciones que escriben abren su transacción dentro de la medición, así el tiempo y las
+    // sentencias contadas incluyen el flush del commit
+
+    public LibroResumen buscarYGuardarLibroPorTitulo(String titulo) {
+        return metricas.medir("busqueda", () -> tx.execute(status -> buscarYGuardarUno(titulo)), l -> 1);
+    }
+
+    public Optional<LibroResumen> buscarYGuardarPorTitulo(String titulo) {
+        return Optional.ofNullable(buscarYGuardarLibroPorTitulo(titulo));
+    }
+
+    public List<LibroResumen> buscarYGuardarVariosPorTitulo(String titulo, int max) {
+        return metricas.medir("busqueda", () -> tx.execute(status -> buscarYGuardarVarios(titulo, max)), List::size);
+    }
+
+    private LibroResumen buscarYGuardarUno(String titulo) {
         String q = titulo == null ? "" : titulo.trim();
         if (q.isEmpty()) return null;
 
-        Optional<Libro> enDb = libroRepository
-                .findTopByTituloContainingIgnoreCaseOrderByDescargasDesc(q);
-        if (enDb.isPresent()) return enDb.get();
+        List<Libro> enDb = libroRepository.buscarPorTitulo(patronContiene(q), clave(q), 1);
+        if (!enDb.isEmpty()) return LibroResumen.de(enDb.get(0));
 
         ApiBookDTO mejor = elegirMejorCandidato(buscarEnApi(q), q);
         if (mejor == null) return null;
@@ -48,72 +102,147 @@ public class LiteraluraService {
         return guardarOActualizarDesdeApi(mejor);
     }
 
-    @Transactional
-    public Optional<Libro> buscarYGuardarPorTitulo(String titulo) {
-        return Optional.ofNullable(buscarYGuardarLibroPorTitulo(titulo));
-    }
-
-    @Transactional
-    public List<Libro> buscarYGuardarVariosPorTitulo(String titulo, int max) {
+    private List<LibroResumen> buscarYGuardarVarios(String titulo, int max) {
         String q = titulo == null ? "" : titulo.trim();
         if (q.isEmpty()) return List.of();
 
-        List<Libro> existentes = libroRepository.findAll().stream()
-                .filter(l -> contiene(l.getTitulo(), q))
-                .sorted(Comparator.comparingInt((Libro l) -> l.getDescargas() == null ? 0 : l.getDescargas())
-                        .reversed())
-                .limit(Math.max(1, max))
-                .collect(Collectors.toList());
+        List<LibroResumen> existentes = libroRepository.topPorTituloContiene(
+                patronContiene(q), PageRequest.of(0, Math.max(1, max)));
 
         if (existentes.size() >= max) return existentes;
 
-        List<ApiBookDTO> api = buscarEnApi(q);
+        List<ApiBookDTO> api;
+        try {
+            api = buscarEnApi(q);
+        } catch (ApiNoDisponibleException e) {
+            // Con Gutendex caído alcanza con lo que ya está en la DB
+            if (existentes.isEmpty()) throw e;
+            log.warn("{}; se devuelven sólo resultados locales", e.getMessage());
+            return existentes;
+        }
         if (api.isEmpty()) return existentes;
 
         List<ApiBookDTO> filtrados = api.stream()
-                .filter(b -> contiene(b.getTitle(), q))
-                .sorted(Comparator.comparingInt((ApiBookDTO b) -> b.getDownload_count() == null ? 0 : b.getDownload_count())
-                        .reversed())
+                .filter(b -> contiene(b.title(), q))
+                .sorted(Comparator.comparingInt(ApiBookDTO::downloadCount).reversed())
                 .limit(Math.max(1, max))
                 .toList();
 
-        List<Libro> guardados = new ArrayList<>(existentes);
-        for (ApiBookDTO dto : filtrados) {
-            guardados.add(guardarOActualizarDesdeApi(dto));
-        }
-        return dedupPorTitulo(guardados);
+        List<LibroResumen> guardados = new ArrayList<>(existentes);
+        guardados.addAll(upsertLote(filtrados).libros());
+        return dedupPorId(guardados);
     }
 
     // Importar por idioma (paginando Gutendex) — ya lo tenías, lo mantenemos
-    @Transactional
-    public List<Libro> importarPorIdioma(String idioma, int max) {
+    public List<LibroResumen> importarPorIdioma(String idioma, int max) {
+        return metricas.medir("importacion", () -> tx.execute(status -> importar(idioma, max)), List::size);
+    }
+
+    private List<LibroResumen> importar(String idioma, int max) {
         if (idioma == null || idioma.isBlank() || max <= 0) return List.of();
 
-        String url = "https://gutendex.com/books/?languages="
-                + URLEncoder.encode(idioma.trim(), StandardCharsets.UTF_8);
+        String url = apiClient.urlPorIdioma(idioma);
 
-        List<Libro> guardados = new ArrayList<>();
+        List<LibroResumen> guardados = new ArrayList<>();
         int count = 0;
 
         while (url != null && count < max) {
             ApiResponseDTO resp = apiClient.searchBooksByUrl(url);
-            if (resp == null || resp.getResults() == null || resp.getResults().isEmpty()) break;
+            if (resp == null || resp.results().isEmpty()) break;
+
+            List<ApiBookDTO> pagina = resp.results();
+            if (count + pagina.size() > max) pagina = pagina.subList(0, max - count);
+            guardados.addAll(upsertLote(pagina).libros());
+            count += pagina.size();
+            url = resp.next();
+        }
+        return dedupPorId(guardados);
+    }
 
-            for (ApiBookDTO dto : resp.getResults()) {
-                guardados.add(guardarOActualizarDesdeApi(dto));
-                count++;
-                if (count >= max) break;
+    /**
+     * Importa por idioma en dos etapas: un hilo descarga páginas por adelantado y las deja en una
+     * cola acotada; el hilo llamante las persiste, una transacción por página.
+     * Si la persistencia se atrasa, la cola llena frena la descarga.
+     */
+    public ResultadoImportacion importarPorIdiomaPipeline(String idioma, int max) {
+        return metricas.medir("importacion", () -> importarEnDosEtapas(idioma, max), ResultadoImportacion::filas);
+    }
+
+    private ResultadoImportacion importarEnDosEtapas(String idioma, int max) {
+        if (idioma == null || idioma.isBlank() || max <= 0) return ResultadoImportacion.vacio();
+
+        String inicial = apiClient.urlPorIdioma(idioma);
+
+        long inicio = System.nanoTime();
+        BlockingQueue<List<ApiBookDTO>> cola = new ArrayBlockingQueue<>(PAGINAS_EN_COLA);
+        AtomicBoolean detener = new AtomicBoolean(false);
+        AtomicInteger paginas = new AtomicInteger();
+
+        ExecutorService descargas = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "literalura-import-descarga");
+            t.setDaemon(true);
+            return t;
+        });
+        Future<?> productor = descargas.submit(() -> {
+            try {
+                String url = inicial;
+                int encolados = 0;
+                while (url != null && encolados < max && !detener.get()) {
+                    ApiResponseDTO resp = apiClient.searchBooksByUrl(url);
+                    if (resp == null || resp.results().isEmpty()) break;
+
+                    List<ApiBookDTO> pagina = resp.results();
+                    if (encolados + pagina.size() > max) pagina = pagina.subList(0, max - encolados);
+                    cola.put(pagina);
+                    paginas.incrementAndGet();
+                    encolados += pagina.size();
+                    url = resp.next();
+                }
+            } finally {
+                cola.put(FIN_IMPORT);
+            }
+            return null;
+        });
+
+        List<LibroResumen> guardados = new ArrayList<>();
+        int filas = 0, nuevos = 0, actualizados = 0, consultasEvitadas = 0;
+        try {
+            while (true) {
+                List<ApiBookDTO> pagina = cola.take();
+                if (pagina == FIN_IMPORT) break;
+                LoteGuardado lote = metricas.medir("upsert",
+                        () -> tx.execute(status -> upsertLote(pagina)), l -> l.libros().size());
+                guardados.addAll(lote.libros());
+                filas += lote.libros().size();
+                nuevos += lote.nuevos();
+                actualizados += lote.actualizados();
+                consultasEvitadas += lote.consultasEvitadas();
             }
-            url = resp.getNext();
+            productor.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException re) throw re;
+            throw new RuntimeException("Error importando por idioma: " + causa.getMessage(), causa);
+        } finally {
+            detener.set(true);
+            cola.clear();
+            productor.cancel(true);
+            descargas.shutdownNow();
         }
-        return dedupPorTitulo(guardados);
+
+        Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+        return new ResultadoImportacion(dedupPorId(guardados), paginas.get(), filas, nuevos, actualizados,
+                consultasEvitadas, duracion);
     }
 
     // ================= Consultas / Estadísticas =================
 
     @Transactional(readOnly = true)
-    public List<Libro> listarTodosLosLibros() {
-        return libroRepository.findAll();
+    public List<LibroResumen> listarTodosLosLibros() {
+        return libroRepository.listarResumenes();
     }
 
     @Transactional(readOnly = true)
@@ -121,54 +250,162 @@ public class LiteraluraService {
         return autorRepository.findAll();
     }
 
+    /**
+     * Recorre todos los libros sin materializar la tabla: cada fila se entrega a 'accion'
+     * apenas llega del cursor. Devuelve cuántos libros se recorrieron.
+     */
+    @Transactional(readOnly = true)
+    public long recorrerLibros(Consumer<LibroResumen> accion) {
+        long n = 0;
+        try (Stream<LibroResumen> libros = libroRepository.streamResumenes()) {
+            Iterator<LibroResumen> it = libros.iterator();
+            while (it.hasNext()) {
+                accion.accept(it.next());
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Igual que {@link #recorrerLibros}, para autores; cada autor se desacopla antes de entregarlo. */
+    @Transactional(readOnly = true)
+    public long recorrerAutores(Consumer<Autor> accion) {
+        long n = 0;
+        try (Stream<Autor> autores = autorRepository.streamTodos()) {
+            Iterator<Autor> it = autores.iterator();
+            while (it.hasNext()) {
+                Autor a = it.next();
+                em.detach(a);
+                accion.accept(a);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    // ================= Listados paginados (keyset) =================
+    // 'token' null o vacío = primera página; Pagina.siguiente() trae el token de la próxima
+
+    @Transactional(readOnly = true)
+    public Pagina<LibroResumen> paginaLibros(String idioma, String token, int tamanio) {
+        CursorKeyset.Libros c = CursorKeyset.libros(token);
+        Pageable limite = limiteKeyset(tamanio);
+        List<LibroResumen> filas = (idioma == null || idioma.isBlank())
+                ? libroRepository.paginaDespuesDe(c.descargas(), c.id(), limite)
+                : libroRepository.paginaPorIdiomaDespuesDe(idioma.trim(), c.descargas(), c.id(), limite);
+        return recortar(filas, tamanio, l -> CursorKeyset.codificar(
+                new CursorKeyset.Libros(l.descargas(), l.id())));
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<Autor> paginaAutores(String token, int tamanio) {
+        CursorKeyset.Autores c = CursorKeyset.autores(token);
+        return paginaDeAutores(autorRepository.paginaDespuesDe(c.nombre(), c.id(), limiteKeyset(tamanio)), tamanio);
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<Autor> paginaAutoresVivosEn(int anio, String token, int tamanio) {
+        CursorKeyset.Autores c = CursorKeyset.autores(token);
+        return paginaDeAutores(autorRepository.paginaVivosEnDespuesDe(
+                anio, c.nombre(), c.id(), limiteKeyset(tamanio)), tamanio);
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<Autor> paginaAutoresNacidosEntre(int desde, int hasta, String token, int tamanio) {
+        CursorKeyset.Autores c = CursorKeyset.autores(token);
+        return paginaDeAutores(autorRepository.paginaNacidosEntreDespuesDe(
+                desde, hasta, c.nombre(), c.id(), limiteKeyset(tamanio)), tamanio);
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<Autor> paginaAutoresFallecidosEntre(int desde, int hasta, String token, int tamanio) {
+        CursorKeyset.Autores c = CursorKeyset.autores(token);
+        return paginaDeAutores(autorRepository.paginaFallecidosEntreDespuesDe(
+                desde, hasta, c.nombre(), c.id(), limiteKeyset(tamanio)), tamanio);
+    }
+
     @Transactional(readOnly = true)
     public List<Autor> listarAutoresVivosEn(int anio) {
         return autorRepository.autoresVivosEn(anio);
     }
 
+    // Vivos en algún año de [desde, hasta]
+    @Transactional(readOnly = true)
+    public List<Autor> listarAutoresVivosEntre(int desde, int hasta) {
+        if (desde > hasta) return List.of();
+        return autorRepository.autoresVivosEntre(desde, hasta);
+    }
+
+    /** Cantidad de autores vivos en cada año de [desde, hasta] (línea de tiempo), en una sola consulta. */
     @Transactional(readOnly = true)
-    public List<Libro> listarLibrosPorIdioma(String idioma) {
-        return libroRepository.findByIdiomaIgnoreCase(idioma);
+    public SortedMap<Integer, Long> contarAutoresVivosPorAnio(int desde, int hasta) {
+        SortedMap<Integer, Long> porAnio = new TreeMap<>();
+        if (desde > hasta) return porAnio;
+        for (AutorRepository.FilaVivosPorAnio f : autorRepository.contarVivosPorAnio(desde, hasta)) {
+            porAnio.put(f.getAnio().intValue(), f.getVivos().longValue());
+        }
+        return porAnio;
     }
 
     @Transactional(readOnly = true)
+    public List<LibroResumen> listarLibrosPorIdioma(String idioma) {
+        return libroRepository.resumenesPorIdioma(idioma);
+    }
+
+    // Sin @Transactional: los tops salen de la tabla de posiciones en memoria y el conteo de
+    // CacheLecturas; sólo un fallo de caché (o un N mayor que K) consulta la DB
+
     public long contarLibrosPorIdioma(String idioma) {
-        return libroRepository.countByIdiomaIgnoreCase(idioma);
+        return cacheLecturas.conteoIdioma(idioma, () -> libroRepository.countByIdiomaIgnoreCase(idioma));
     }
 
     // Top 10 global por descargas
-    @Transactional(readOnly = true)
-    public List<Libro> top10MasDescargados() {
-        return libroRepository.findTop10ByOrderByDescargasDesc();
+    public List<LibroResumen> top10MasDescargados() {
+        return posiciones.topGlobal(10).orElseGet(() ->
+                cacheLecturas.topGlobal(10, () -> libroRepository.topResumen(PageRequest.of(0, 10))));
     }
 
     // Top N por idioma (ordenados por descargas)
-    @Transactional(readOnly = true)
-    public List<Libro> topPorIdioma(String idioma, int n) {
+    public List<LibroResumen> topPorIdioma(String idioma, int n) {
         int size = Math.max(1, n);
-        Pageable page = PageRequest.of(0, size);
-        return libroRepository.findByIdiomaIgnoreCaseOrderByDescargasDesc(idioma, page);
+        return posiciones.topIdioma(idioma, size).orElseGet(() ->
+                cacheLecturas.topIdioma(idioma, size,
+                        () -> libroRepository.topResumenPorIdioma(idioma, PageRequest.of(0, size))));
     }
 
-    // Estadísticas de descargas (por idioma o global si idioma es null/blank)
+    // Estadísticas de descargas (por idioma o global si idioma es null/blank), agregadas en la DB
     @Transactional(readOnly = true)
-    public IntSummaryStatistics estadisticasDescargas(String idioma) {
-        List<Libro> base = (idioma == null || idioma.isBlank())
-                ? libroRepository.findAll()
-                : libroRepository.findByIdiomaIgnoreCase(idioma);
+    public EstadisticasDescargas estadisticasDescargas(String idioma) {
+        if (idioma == null || idioma.isBlank()) {
+            return aEstadisticas(libroRepository.estadisticasGlobales());
+        }
+        return libroRepository.estadisticasDeIdioma(idioma.trim())
+                .map(LiteraluraService::aEstadisticas)
+                .orElseGet(() -> new EstadisticasDescargas(clave(idioma.trim()), 0, 0, 0, 0, 0, 0, 0, 0));
+    }
 
-        return base.stream()
-                .map(l -> l.getDescargas() == null ? 0 : l.getDescargas())
-                .mapToInt(Integer::intValue)
-                .summaryStatistics();
+    // Una fila por idioma, en una sola consulta
+    @Transactional(readOnly = true)
+    public List<EstadisticasDescargas> estadisticasPorIdioma() {
+        return libroRepository.estadisticasPorIdioma().stream()
+                .map(LiteraluraService::aEstadisticas)
+                .toList();
     }
 
+    // Una fila por autor, en una sola consulta
+    @Transactional(readOnly = true)
+    public List<EstadisticasDescargas> estadisticasPorAutor() {
+        return libroRepository.estadisticasPorAutor().stream()
+                .map(LiteraluraService::aEstadisticas)
+                .toList();
+    }
 
     // Buscar autor por nombre (contains, ignore case)
     @Transactional(readOnly = true)
     public List<Autor> buscarAutorPorNombre(String nombre) {
         if (nombre == null || nombre.isBlank()) return List.of();
-        return autorRepository.findByNombreContainingIgnoreCase(nombre.trim());
+        String q = nombre.trim();
+        return autorRepository.buscarPorNombre(patronContiene(q), clave(q));
     }
 
     @Transactional(readOnly = true)
@@ -186,62 +423,319 @@ public class LiteraluraService {
     // ================= Helpers =================
 
     private List<ApiBookDTO> buscarEnApi(String q) {
-        String encoded = URLEncoder.encode(q, StandardCharsets.UTF_8);
-        ApiResponseDTO resp = apiClient.searchBooks(encoded);
-        if (resp == null || resp.getResults() == null) return List.of();
-        return resp.getResults();
+        ApiResponseDTO resp = apiClient.searchBooks(q);
+        return resp == null ? List.of() : resp.results();
     }
 
     private ApiBookDTO elegirMejorCandidato(List<ApiBookDTO> resultados, String q) {
         if (resultados == null || resultados.isEmpty()) return null;
         return resultados.stream()
-                .max(Comparator.<ApiBookDTO>comparingInt(b -> contiene(b.getTitle(), q) ? 1 : 0)
-                        .thenComparingInt(b -> b.getDownload_count() == null ? 0 : b.getDownload_count()))
+                .max(Comparator.<ApiBookDTO>comparingInt(b -> contiene(b.title(), q) ? 1 : 0)
+                        .thenComparingInt(ApiBookDTO::downloadCount))
                 .orElse(null);
     }
 
-    private Libro guardarOActualizarDesdeApi(ApiBookDTO dto) {
-        ApiAuthorDTO apiAutor = (dto.getAuthors() != null && !dto.getAuthors().isEmpty())
-                ? dto.getAuthors().get(0) : null;
-        Autor autor = mapearYObtenerAutor(apiAutor);
+    private LibroResumen guardarOActualizarDesdeApi(ApiBookDTO dto) {
+        return upsertLote(List.of(dto)).libros().get(0);
+    }
+
+    /**
+     * Guarda o actualiza una página completa de resultados de la API.
+     * Los libros se identifican por su id de Gutenberg: una consulta trae todos los ids de la página
+     * y sólo se escriben los nuevos o los que cambiaron (Hibernate agrupa los INSERT/UPDATE en lotes JDBC).
+     */
+    public List<LibroResumen> guardarOActualizarLote(List<ApiBookDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) return List.of();
+        return metricas.medir("upsert", () -> tx.execute(status -> upsertLote(dtos).libros()), List::size);
+    }
+
+    /**
+     * Guarda una página y devuelve cuántas filas fueron nuevas o cambiaron.
+     * Lo usa el espejo del catálogo dentro de su propia transacción, junto con el punto de control.
+     */
+    @Transactional
+    LoteGuardado guardarLote(List<ApiBookDTO> dtos) {
+        return upsertLote(dtos);
+    }
+
+    /** Resultado interno de un upsert por página. */
+    record LoteGuardado(List<LibroResumen> libros, int nuevos, int actualizados, int consultasEvitadas) {
+        static final LoteGuardado VACIO = new LoteGuardado(List.of(), 0, 0, 0);
+    }
+
+    /** Autores de un lote por nombre normalizado, y cuántas consultas se ahorraron gracias a {@link MapaAutores}. */
+    private record AutoresResueltos(Map<String, Autor> porClave, int consultasEvitadas) {}
+
+    private LoteGuardado upsertLote(List<ApiBookDTO> dtos) {
+        if (dtos.isEmpty()) return LoteGuardado.VACIO;
+        AutoresResueltos resueltos = resolverAutores(dtos);
+        Map<String, Autor> autores = resueltos.porClave();
+        Map<Integer, Libro> porGutenbergId = new HashMap<>();
+        Map<String, Libro> legadosPorTitulo = buscarExistentes(dtos, porGutenbergId);
+
+        List<Libro> resultado = new ArrayList<>(dtos.size());
+        List<Libro> nuevos = new ArrayList<>();
+        // Estado previo de cada libro modificado, para actualizar sólo lo necesario en las lecturas en memoria
+        Map<Libro, EstadoPrevio> modificados = new IdentityHashMap<>();
+        for (ApiBookDTO dto : dtos) {
+            String titulo = nullSafe(dto.title());
+            Integer gutenbergId = dto.tieneId() ? dto.id() : null;
+            Libro libro = gutenbergId != null ? porGutenbergId.get(gutenbergId) : null;
+            if (libro == null) {
+                // Filas anteriores a guardar el id de Gutenberg: se reconocen por título y se completan
+                libro = legadosPorTitulo.remove(clave(titulo));
+                if (libro != null && gutenbergId != null) porGutenbergId.put(gutenbergId, libro);
+            }
+            if (libro == null) {
+                libro = new Libro();
+                libro.setGutenbergId(gutenbergId);
+                if (gutenbergId != null) porGutenbergId.put(gutenbergId, libro);
+                nuevos.add(libro);
+            }
 
-        String titulo = nullSafe(dto.getTitle());
-        String idioma = primeroONull(dto.getLanguages());
-        int descargas = dto.getDownload_count() == null ? 0 : dto.getDownload_count();
+            EstadoPrevio antes = new EstadoPrevio(libro.getIdioma(), libro.getDescargas());
+            // Sólo se tocan los campos distintos: un libro sin cambios no genera UPDATE
+            boolean cambio = false;
+            cambio |= asignar(libro.getGutenbergId(), gutenbergId, libro::setGutenbergId);
+            cambio |= asignar(libro.getTitulo(), titulo, libro::setTitulo);
+            List<String> idiomas = idiomasDe(dto);
+            cambio |= asignar(libro.getIdioma(), primeroONull(idiomas), libro::setIdioma);
+            if (!libro.getIdiomas().equals(idiomas)) {
+                libro.setIdiomas(new ArrayList<>(idiomas));
+                cambio = true;
+            }
+            cambio |= asignar(libro.getDescargas(), dto.downloadCount(), libro::setDescargas);
+            List<Autor> autoresLibro = autoresDe(dto, autores);
+            // Por id: los autores pueden venir del mapa de identidad como instancias desacopladas
+            if (!mismoAutor(libro.getAutor(), autoresLibro.get(0))) {
+                libro.setAutor(autoresLibro.get(0));
+                cambio = true;
+            }
+            if (!mismosAutores(libro.getAutores(), autoresLibro)) {
+                libro.setAutores(new ArrayList<>(autoresLibro));
+                cambio = true;
+            }
+            if (cambio && libro.getId() != null) modificados.putIfAbsent(libro, antes);
+            resultado.add(libro);
+        }
+        libroRepository.saveAll(nuevos);
+        publicarAlConfirmar(cambios(nuevos, modificados));
+        // Resúmenes armados aquí, con la sesión abierta: un autor sin cambios sigue siendo un proxy LAZY
+        List<LibroResumen> resumenes = resultado.stream().map(LibroResumen::de).toList();
+        return new LoteGuardado(resumenes, nuevos.size(), modificados.size(), resueltos.consultasEvitadas());
+    }
 
-        Optional<Libro> existente = libroRepository.findTopByTituloIgnoreCase(titulo);
-        if (existente.isPresent()) {
-            Libro l = existente.get();
-            l.setIdioma(idioma);
-            l.setDescargas(descargas);
-            l.setAutor(autor);
-            return libroRepository.save(l);
+    // Una consulta por ids de Gutenberg y otra (sólo si hace falta) por títulos de filas sin id
+    private Map<String, Libro> buscarExistentes(List<ApiBookDTO> dtos, Map<Integer, Libro> porGutenbergId) {
+        Set<Integer> ids = dtos.stream()
+                .filter(ApiBookDTO::tieneId)
+                .map(ApiBookDTO::id)
+                .collect(Collectors.toSet());
+        if (!ids.isEmpty()) {
+            for (Libro l : libroRepository.findByGutenbergIdIn(ids)) porGutenbergId.put(l.getGutenbergId(), l);
         }
 
-        Libro nuevo = new Libro();
-        nuevo.setTitulo(titulo);
-        nuevo.setIdioma(idioma);
-        nuevo.setDescargas(descargas);
-        nuevo.setAutor(autor);
-        return libroRepository.save(nuevo);
-    }
-
-    private Autor mapearYObtenerAutor(ApiAuthorDTO apiAutor) {
-        String nombre = apiAutor != null ? nullSafe(apiAutor.getName()) : "Autor desconocido";
-        Optional<Autor> existente = autorRepository.findByNombreIgnoreCase(nombre);
-        if (existente.isPresent()) {
-            Autor a = existente.get();
-            if (a.getAnioNacimiento() == null && apiAutor != null) a.setAnioNacimiento(apiAutor.getBirth_year());
-            if (a.getAnioFallecimiento() == null && apiAutor != null) a.setAnioFallecimiento(apiAutor.getDeath_year());
-            return autorRepository.save(a);
+        Set<String> titulosSinMatch = dtos.stream()
+                .filter(d -> !d.tieneId() || !porGutenbergId.containsKey(d.id()))
+                .map(d -> clave(nullSafe(d.title())))
+                .collect(Collectors.toSet());
+        Map<String, Libro> legados = new HashMap<>();
+        if (!titulosSinMatch.isEmpty()) {
+            for (Libro l : libroRepository.findSinGutenbergIdPorTitulo(titulosSinMatch)) {
+                legados.putIfAbsent(clave(l.getTitulo()), l);
+            }
         }
-        Autor nuevo = new Autor();
-        nuevo.setNombre(nombre);
-        if (apiAutor != null) {
-            nuevo.setAnioNacimiento(apiAutor.getBirth_year());
-            nuevo.setAnioFallecimiento(apiAutor.getDeath_year());
+        return legados;
+    }
+
+    private static boolean mismosAutores(List<Autor> actuales, List<Autor> nuevos) {
+        if (actuales.size() != nuevos.size()) return false;
+        for (int i = 0; i < nuevos.size(); i++) {
+            if (!mismoAutor(actuales.get(i), nuevos.get(i))) return false;
         }
-        return autorRepository.save(nuevo);
+        return true;
+    }
+
+    private static boolean mismoAutor(Autor a, Autor b) {
+        if (a == b) return true;
+        return a != null && b != null && a.getId() != null && a.getId().equals(b.getId());
+    }
+
+    private static <T> boolean asignar(T actual, T nuevo, Consumer<T> setter) {
+        if (Objects.equals(actual, nuevo)) return false;
+        setter.accept(nuevo);
+        return true;
+    }
+
+    // Las lecturas en memoria se actualizan sólo con datos confirmados (un rollback no las toca).
+    // Los afterCommit de transacciones concurrentes corren en cualquier orden: la versión se toma antes del
+    // commit pero después del flush, cuando las filas escritas ya están bloqueadas hasta el commit. Así, para
+    // un mismo libro, la transacción que confirma después siempre tiene la versión mayor.
+    private void publicarAlConfirmar(List<CacheLecturas.CambioLibro> cambios) {
+        if (cambios.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicar(conVersion(cambios, posiciones.siguienteVersion()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private List<CacheLecturas.CambioLibro> versionados;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                libroRepository.flush();
+                versionados = conVersion(cambios, posiciones.siguienteVersion());
+            }
+
+            @Override
+            public void afterCommit() {
+                publicar(versionados);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                // Rollback después de tomar la versión: no se va a aplicar, que no quede pendiente
+                if (status != STATUS_COMMITTED && versionados != null) {
+                    posiciones.descartarVersion(versionados.get(0).version());
+                }
+            }
+        });
+    }
+
+    private void publicar(List<CacheLecturas.CambioLibro> cambios) {
+        try {
+            cacheLecturas.invalidar(cambios);
+        } finally {
+            // Aplicar libera la versión pendiente: aunque falle la cache, la tabla no queda esperándola
+            posiciones.aplicar(cambios);
+        }
+    }
+
+    private static List<CacheLecturas.CambioLibro> conVersion(List<CacheLecturas.CambioLibro> cambios, long version) {
+        return cambios.stream().map(c -> c.conVersion(version)).toList();
+    }
+
+    private static void alConfirmar(Runnable publicar) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicar.run();
+                }
+            });
+        } else {
+            publicar.run();
+        }
+    }
+
+    private record EstadoPrevio(String idioma, Integer descargas) {}
+
+    private static List<CacheLecturas.CambioLibro> cambios(List<Libro> nuevos, Map<Libro, EstadoPrevio> modificados) {
+        List<CacheLecturas.CambioLibro> cambios = new ArrayList<>();
+        for (Libro l : nuevos) {
+            cambios.add(new CacheLecturas.CambioLibro(LibroResumen.de(l), true, null, null, 0));
+        }
+        modificados.forEach((l, antes) ->
+                cambios.add(new CacheLecturas.CambioLibro(LibroResumen.de(l), false, antes.idioma(), antes.descargas(), 0)));
+        return cambios;
+    }
+
+    private AutoresResueltos resolverAutores(List<ApiBookDTO> dtos) {
+        Map<String, ApiAuthorDTO> pedidos = new LinkedHashMap<>();
+        for (ApiBookDTO dto : dtos) {
+            for (ApiAuthorDTO apiAutor : autoresApi(dto)) {
+                pedidos.putIfAbsent(clave(nombreAutor(apiAutor)), apiAutor);
+            }
+        }
+
+        // Los autores ya conocidos (y sin años por completar) se resuelven sin consultar la DB
+        Map<String, Autor> autores = new HashMap<>();
+        Map<String, ApiAuthorDTO> porResolver = new LinkedHashMap<>();
+        pedidos.forEach((clave, apiAutor) -> {
+            Integer nacimiento = apiAutor != null ? apiAutor.nacimiento() : null;
+            Integer fallecimiento = apiAutor != null ? apiAutor.fallecimiento() : null;
+            Optional<MapaAutores.AutorConocido> conocido = mapaAutores.buscar(clave)
+                    .filter(c -> c.cubre(nacimiento, fallecimiento));
+            if (conocido.isPresent()) autores.put(clave, conocido.get().comoAutor());
+            else porResolver.put(clave, apiAutor);
+        });
+        if (porResolver.isEmpty()) return new AutoresResueltos(autores, 1);
+
+        Map<String, Autor> leidos = buscarAutores(porResolver.keySet(), porResolver.values());
+        Map<String, ApiAuthorDTO> faltantes = new LinkedHashMap<>(porResolver);
+        faltantes.keySet().removeAll(leidos.keySet());
+        if (!faltantes.isEmpty()) {
+            // INSERT ... ON CONFLICT DO NOTHING: si otra transacción crea el mismo autor a la vez, espera a que
+            // confirme y no inserta; luego se leen todos, propios o ajenos, sin violar uk_autor_nombre
+            for (ApiAuthorDTO apiAutor : faltantes.values()) {
+                autorRepository.insertarSiNoExiste(nombreAutor(apiAutor),
+                        apiAutor != null ? apiAutor.nacimiento() : null,
+                        apiAutor != null ? apiAutor.fallecimiento() : null);
+            }
+            leidos.putAll(buscarAutores(faltantes.keySet(), faltantes.values()));
+        }
+
+        for (Map.Entry<String, ApiAuthorDTO> e : porResolver.entrySet()) {
+            ApiAuthorDTO apiAutor = e.getValue();
+            Autor autor = leidos.get(e.getKey());
+            if (autor != null && apiAutor != null) {
+                if (autor.getAnioNacimiento() == null) autor.setAnioNacimiento(apiAutor.nacimiento());
+                if (autor.getAnioFallecimiento() == null) autor.setAnioFallecimiento(apiAutor.fallecimiento());
+            }
+        }
+        List<Autor> registrar = List.copyOf(leidos.values());
+        alConfirmar(() -> mapaAutores.registrar(registrar));
+        autores.putAll(leidos);
+        return new AutoresResueltos(autores, 0);
+    }
+
+    private Map<String, Autor> buscarAutores(Collection<String> claves, Collection<ApiAuthorDTO> apiAutores) {
+        Set<String> exactos = apiAutores.stream()
+                .map(LiteraluraService::nombreAutor)
+                .collect(Collectors.toSet());
+        Map<String, Autor> autores = new HashMap<>();
+        for (Autor a : autorRepository.findByNombreEnMinusculasOExacto(claves, exactos)) {
+            autores.putIfAbsent(clave(a.getNombre()), a);
+        }
+        return autores;
+    }
+
+    // Autores de la API en orden; un libro sin autores queda con "Autor desconocido" (null)
+    private static List<ApiAuthorDTO> autoresApi(ApiBookDTO dto) {
+        if (dto.authors().isEmpty()) return Collections.singletonList(null);
+        return dto.authors();
+    }
+
+    // Autores ya resueltos del libro, sin repetir, en el orden de la API (nunca vacía)
+    private static List<Autor> autoresDe(ApiBookDTO dto, Map<String, Autor> resueltos) {
+        Map<String, Autor> distintos = new LinkedHashMap<>();
+        for (ApiAuthorDTO apiAutor : autoresApi(dto)) {
+            String clave = clave(nombreAutor(apiAutor));
+            distintos.putIfAbsent(clave, resueltos.get(clave));
+        }
+        return new ArrayList<>(distintos.values());
+    }
+
+    private static List<String> idiomasDe(ApiBookDTO dto) {
+        return dto.languages().stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(i -> !i.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static String nombreAutor(ApiAuthorDTO apiAutor) {
+        return apiAutor != null ? nullSafe(apiAutor.name()) : "Autor desconocido";
+    }
+
+    private static String clave(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    // Patrón LIKE '%q%' en minúsculas; '!' es el carácter de escape que declaran las consultas
+    private static String patronContiene(String q) {
+        String escapado = clave(q).replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escapado + "%";
     }
 
     private static boolean contiene(String titulo, String q) {
@@ -249,6 +743,38 @@ public class LiteraluraService {
         return titulo.toLowerCase(Locale.ROOT).contains(q.toLowerCase(Locale.ROOT));
     }
 
+    // Se pide una fila de más para saber si existe otra página sin hacer un COUNT
+    private static Pageable limiteKeyset(int tamanio) {
+        return PageRequest.of(0, Math.max(1, tamanio) + 1);
+    }
+
+    private static <T> Pagina<T> recortar(List<T> filas, int tamanio, Function<T, String> tokenDe) {
+        int n = Math.max(1, tamanio);
+        if (filas.size() <= n) return new Pagina<>(filas, null);
+        List<T> pagina = filas.subList(0, n);
+        return new Pagina<>(new ArrayList<>(pagina), tokenDe.apply(pagina.get(n - 1)));
+    }
+
+    private static Pagina<Autor> paginaDeAutores(List<Autor> filas, int tamanio) {
+        return recortar(filas, tamanio, a -> CursorKeyset.codificar(
+                new CursorKeyset.Autores(a.getNombre(), a.getId())));
+    }
+
+    private static EstadisticasDescargas aEstadisticas(LibroRepository.FilaEstadisticas f) {
+        return new EstadisticasDescargas(f.getClave(),
+                aLong(f.getCantidad()), aLong(f.getSuma()),
+                (int) aLong(f.getMinimo()), (int) aLong(f.getMaximo()),
+                aDouble(f.getPromedio()), aDouble(f.getP50()), aDouble(f.getP90()), aDouble(f.getP99()));
+    }
+
+    private static long aLong(Number n) {
+        return n == null ? 0 : n.longValue();
+    }
+
+    private static double aDouble(Number n) {
+        return n == null ? 0 : n.doubleValue();
+    }
+
     private static String primeroONull(List<String> lista) {
         return (lista == null || lista.isEmpty()) ? null : lista.get(0);
     }
@@ -257,10 +783,11 @@ public class LiteraluraService {
         return s == null ? "" : s;
     }
 
-    private static List<Libro> dedupPorTitulo(List<Libro> libros) {
-        Map<String, Libro> m = new LinkedHashMap<>();
-        for (Libro l : libros) {
-            String k = l.getTitulo() == null ? "" : l.getTitulo().toLowerCase(Locale.ROOT);
+    // Un mismo libro puede aparecer en varias páginas; distintas ediciones con igual título se conservan
+    private static List<LibroResumen> dedupPorId(List<LibroResumen> libros) {
+        Map<Object, LibroResumen> m = new LinkedHashMap<>();
+        for (LibroResumen l : libros) {
+            Object k = l.id() != null ? l.id() : l;
             m.putIfAbsent(k, l);
         }
         return new ArrayList<>(m.values());
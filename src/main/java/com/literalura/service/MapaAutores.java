@@ -0,0 +1,81 @@
+package com.literalura.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.literalura.domain.Autor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Mapa de identidad de autores para los imports: nombre normalizado → id y años ya guardados.
+ * Los autores no se borran ni cambian de nombre, así que una entrada sigue siendo válida mientras viva;
+ * sólo se registran autores de transacciones confirmadas.
+ */
+@Component
+public class MapaAutores {
+
+    /** Copia inmutable de un autor ya guardado. */
+    public record AutorConocido(Long id, String nombre, Integer anioNacimiento, Integer anioFallecimiento) {
+        /** true si la API no aporta nada que falte: no hace falta cargar ni actualizar el autor. */
+        public boolean cubre(Integer nacimiento, Integer fallecimiento) {
+            return (anioNacimiento != null || nacimiento == null) && (anioFallecimiento != null || fallecimiento == null);
+        }
+
+        /**
+         * Autor desacoplado (no gestionado) para asignarlo como referencia en un libro: Hibernate sólo usa su id
+         * para la clave foránea y, a diferencia de un proxy, se puede leer fuera de la transacción.
+         */
+        public Autor comoAutor() {
+            Autor a = new Autor();
+            a.setId(id);
+            a.setNombre(nombre);
+            a.setAnioNacimiento(anioNacimiento);
+            a.setAnioFallecimiento(anioFallecimiento);
+            return a;
+        }
+    }
+
+    private final Cache<String, AutorConocido> porNombre;
+
+    public MapaAutores(@Value("${literalura.autores-conocidos.max-entradas:20000}") long maxEntradas) {
+        this.porNombre = Caffeine.newBuilder().maximumSize(maxEntradas).recordStats().build();
+    }
+
+    public Optional<AutorConocido> buscar(String nombre) {
+        return Optional.ofNullable(porNombre.getIfPresent(clave(nombre)));
+    }
+
+    /** Llamar sólo con datos confirmados (después del commit). */
+    public void registrar(Collection<Autor> autores) {
+        for (Autor a : autores) {
+            if (a.getId() == null || a.getNombre() == null) continue;
+            porNombre.put(clave(a.getNombre()),
+                    new AutorConocido(a.getId(), a.getNombre(), a.getAnioNacimiento(), a.getAnioFallecimiento()));
+        }
+    }
+
+    public void invalidarTodo() {
+        porNombre.invalidateAll();
+    }
+
+    public CacheStats estadisticas() {
+        return porNombre.stats();
+    }
+
+    public long getEntradas() {
+        return porNombre.estimatedSize();
+    }
+
+    Cache<String, AutorConocido> cache() {
+        return porNombre;
+    }
+
+    private static String clave(String nombre) {
+        return nombre.toLowerCase(Locale.ROOT);
+    }
+}
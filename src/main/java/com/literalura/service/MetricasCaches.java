@@ -0,0 +1,54 @@
+package com.literalura.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publica en Micrometer el estado de las cachés en memoria: las de Caffeine (lecturas y mapa de autores)
+ * con sus métricas estándar 'cache.*', y la caché de respuestas de Gutendex con sus propios contadores.
+ */
+@Component
+public class MetricasCaches implements MeterBinder {
+
+    private final RespuestaCache respuestas;
+    private final CacheLecturas lecturas;
+    private final MapaAutores mapaAutores;
+
+    public MetricasCaches(RespuestaCache respuestas, CacheLecturas lecturas, MapaAutores mapaAutores) {
+        this.respuestas = respuestas;
+        this.lecturas = lecturas;
+        this.mapaAutores = mapaAutores;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, lecturas.cacheTops(), "lecturas.tops");
+        CaffeineCacheMetrics.monitor(registry, lecturas.cacheConteos(), "lecturas.conteos");
+        CaffeineCacheMetrics.monitor(registry, mapaAutores.cache(), "autores.conocidos");
+        FunctionCounter.builder("literalura.lecturas.invalidaciones", lecturas, CacheLecturas::getInvalidaciones)
+                .register(registry);
+
+        contador(registry, "aciertos", RespuestaCache::getAciertos);
+        contador(registry, "fallos", RespuestaCache::getFallos);
+        contador(registry, "revalidaciones", RespuestaCache::getRevalidaciones);
+        contador(registry, "desalojos", RespuestaCache::getDesalojos);
+        contador(registry, "vencidas", RespuestaCache::getVencidasServidas);
+        Gauge.builder("literalura.api.cache.entradas", respuestas, RespuestaCache::getEntradas).register(registry);
+        Gauge.builder("literalura.api.cache.bytes", respuestas, RespuestaCache::getBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private void contador(MeterRegistry registry, String resultado, ToDoubleFunction<RespuestaCache> valor) {
+        FunctionCounter.builder("literalura.api.cache", respuestas, valor)
+                .description("Consultas a la caché de respuestas de Gutendex por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.literalura.service;
+
+import com.literalura.repository.ContadorSentencias;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Mide las operaciones del servicio: duración, filas procesadas y sentencias SQL que ejecutaron.
+ * Las operaciones deben envolver también el commit (la transacción va dentro de {@link #medir}):
+ * Hibernate escribe al hacer flush, y esas sentencias son justamente las que interesa contar.
+ */
+@Component
+public class MetricasOperaciones {
+
+    private final MeterRegistry registry;
+
+    public MetricasOperaciones(MeterRegistry registry) {
+        this.registry = registry;
+        FunctionCounter.builder("literalura.jdbc.sentencias", ContadorSentencias.class, c -> ContadorSentencias.total())
+                .description("Sentencias SQL preparadas por Hibernate")
+                .register(registry);
+    }
+
+    public <T> T medir(String operacion, Supplier<T> cuerpo, ToIntFunction<T> filas) {
+        long sentenciasAntes = ContadorSentencias.delHilo();
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            T valor = cuerpo.get();
+            resultado = "ok";
+            DistributionSummary.builder("literalura.operaciones.filas")
+                    .description("Filas procesadas por operación")
+                    .tag("operacion", operacion)
+                    .register(registry)
+                    .record(valor == null ? 0 : filas.applyAsInt(valor));
+            return valor;
+        } finally {
+            Timer.builder("literalura.operaciones")
+                    .description("Duración de las operaciones del servicio, commit incluido")
+                    .tags("operacion", operacion, "resultado", resultado)
+                    .register(registry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("literalura.operaciones.sentencias")
+                    .description("Sentencias SQL por operación")
+                    .tag("operacion", operacion)
+                    .register(registry)
+                    .record(ContadorSentencias.delHilo() - sentenciasAntes);
+        }
+    }
+}
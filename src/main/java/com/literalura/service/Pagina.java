@@ -0,0 +1,14 @@
+package com.literalura.service;
+
+import java.util.List;
+
+/**
+ * Página de un listado por keyset. 'siguiente' es el token opaco para pedir la página
+ * que sigue, o null si ésta es la última.
+ */
+public record Pagina<T>(List<T> elementos, String siguiente) {
+
+    public boolean hayMas() {
+        return siguiente != null;
+    }
+}
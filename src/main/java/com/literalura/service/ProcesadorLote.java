@@ -0,0 +1,203 @@
+package com.literalura.service;
+
+import com.literalura.domain.LibroResumen;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Modo por lotes: ejecuta un archivo de comandos (una línea cada uno) con hasta N en paralelo y entrega cada
+ * resultado apenas termina. Una línea es un título a resolver, o un comando explícito:
+ * <pre>
+ *   Pride and Prejudice          (igual que "buscar: Pride and Prejudice")
+ *   buscar: Frankenstein
+ *   importar: es 200             (importar por idioma, máximo 200)
+ *   # comentario
+ * </pre>
+ * Cada comando abre su propia transacción; el límite de tasa de la API y el pool de conexiones son compartidos.
+ */
+@Service
+public class ProcesadorLote {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcesadorLote.class);
+
+    public enum Estado { OK, NO_ENCONTRADO, ERROR }
+
+    /** Resultado de una línea del archivo; los campos que no aplican al comando quedan en null. */
+    public record ResultadoComando(int linea, String comando, String entrada, Estado estado,
+                                   LibroResumen libro, Integer libros, long milis, String error) {}
+
+    private record Comando(int linea, String nombre, String argumento) {}
+
+    private final LiteraluraService service;
+    private final int paralelismoPorDefecto;
+
+    public ProcesadorLote(LiteraluraService service,
+                          @Value("${literalura.lote.paralelismo:4}") int paralelismoPorDefecto) {
+        this.service = service;
+        this.paralelismoPorDefecto = Math.max(1, paralelismoPorDefecto);
+    }
+
+    public int paralelismoPorDefecto() {
+        return paralelismoPorDefecto;
+    }
+
+    /**
+     * Lee los comandos de 'entrada' a medida que hay lugar (a lo sumo 2×paralelismo en vuelo) y llama a
+     * 'alTerminar' desde este hilo, en orden de finalización.
+     */
+    public ResultadoLote procesar(BufferedReader entrada, int paralelismo, Consumer<ResultadoComando> alTerminar) {
+        int hilos = Math.max(1, paralelismo);
+        long inicio = System.nanoTime();
+        AtomicInteger numero = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos, r -> {
+            Thread t = new Thread(r, "literalura-lote-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<ResultadoComando> enCurso = new ExecutorCompletionService<>(pool);
+        int ventana = hilos * 2;
+        Resumen resumen = new Resumen();
+        try {
+            int linea = 0, enVuelo = 0;
+            boolean quedan = true;
+            while (quedan || enVuelo > 0) {
+                while (quedan && enVuelo < ventana) {
+                    String texto = entrada.readLine();
+                    if (texto == null) {
+                        quedan = false;
+                        break;
+                    }
+                    Comando c = interpretar(++linea, texto);
+                    if (c == null) continue;
+                    enCurso.submit(() -> ejecutar(c));
+                    enVuelo++;
+                }
+                if (enVuelo == 0) break;
+                ResultadoComando r = enCurso.take().get();
+                enVuelo--;
+                resumen.agregar(r);
+                alTerminar.accept(r);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de comandos", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Lote interrumpido", e);
+        } catch (ExecutionException e) {
+            // ejecutar() ya captura los errores de cada comando: esto sería un error del propio procesador
+            throw new RuntimeException("Error en el lote: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return resumen.resultado(hilos, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    // ===== Comandos =====
+
+    private static Comando interpretar(int linea, String texto) {
+        String s = texto.strip();
+        if (s.isEmpty() || s.startsWith("#")) return null;
+        int dosPuntos = s.indexOf(':');
+        if (dosPuntos > 0) {
+            String nombre = s.substring(0, dosPuntos).strip().toLowerCase(Locale.ROOT);
+            if (nombre.equals("buscar") || nombre.equals("importar")) {
+                return new Comando(linea, nombre, s.substring(dosPuntos + 1).strip());
+            }
+        }
+        // Sin comando reconocido, la línea entera es un título (puede contener ':')
+        return new Comando(linea, "buscar", s);
+    }
+
+    private ResultadoComando ejecutar(Comando c) {
+        long inicio = System.nanoTime();
+        try {
+            return switch (c.nombre()) {
+                case "importar" -> importar(c, inicio);
+                default -> buscar(c, inicio);
+            };
+        } catch (RuntimeException e) {
+            return new ResultadoComando(c.linea(), c.nombre(), c.argumento(), Estado.ERROR, null, null,
+                    milisDesde(inicio), e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        }
+    }
+
+    private ResultadoComando buscar(Comando c, long inicio) {
+        LibroResumen libro;
+        try {
+            libro = service.buscarYGuardarLibroPorTitulo(c.argumento());
+        } catch (DataIntegrityViolationException e) {
+            // Otro hilo guardó el mismo libro o autor en paralelo; el segundo intento ya lo encuentra
+            log.debug("Línea {}: conflicto al guardar, se reintenta ({})", c.linea(), e.getMessage());
+            libro = service.buscarYGuardarLibroPorTitulo(c.argumento());
+        }
+        Estado estado = libro == null ? Estado.NO_ENCONTRADO : Estado.OK;
+        return new ResultadoComando(c.linea(), c.nombre(), c.argumento(), estado, libro, null, milisDesde(inicio), null);
+    }
+
+    private ResultadoComando importar(Comando c, long inicio) {
+        String[] partes = c.argumento().split("\\s+");
+        if (partes.length != 2) throw new IllegalArgumentException("Se esperaba 'importar: <idioma> <máximo>'");
+        int max = Integer.parseInt(partes[1]);
+        ResultadoImportacion r;
+        try {
+            r = service.importarPorIdiomaPipeline(partes[0], max);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Línea {}: conflicto al importar, se reintenta ({})", c.linea(), e.getMessage());
+            r = service.importarPorIdiomaPipeline(partes[0], max);
+        }
+        Estado estado = r.libros().isEmpty() ? Estado.NO_ENCONTRADO : Estado.OK;
+        return new ResultadoComando(c.linea(), c.nombre(), c.argumento(), estado, null, r.libros().size(),
+                milisDesde(inicio), null);
+    }
+
+    private static long milisDesde(long inicio) {
+        return (System.nanoTime() - inicio) / 1_000_000;
+    }
+
+    // Sólo lo toca el hilo que llama a procesar()
+    private static final class Resumen {
+        int ok, noEncontrados, errores;
+        long[] milis = new long[256];
+        int n;
+
+        void agregar(ResultadoComando r) {
+            switch (r.estado()) {
+                case OK -> ok++;
+                case NO_ENCONTRADO -> noEncontrados++;
+                case ERROR -> errores++;
+            }
+            if (n == milis.length) milis = Arrays.copyOf(milis, n * 2);
+            milis[n++] = r.milis();
+        }
+
+        ResultadoLote resultado(int paralelismo, Duration duracion) {
+            long[] ordenados = Arrays.copyOf(milis, n);
+            Arrays.sort(ordenados);
+            return new ResultadoLote(n, ok, noEncontrados, errores, paralelismo, duracion,
+                    percentil(ordenados, 0.50), percentil(ordenados, 0.95), n == 0 ? 0 : ordenados[n - 1]);
+        }
+
+        private static long percentil(long[] ordenados, double p) {
+            if (ordenados.length == 0) return 0;
+            int i = (int) Math.ceil(p * ordenados.length) - 1;
+            return ordenados[Math.max(0, i)];
+        }
+    }
+}
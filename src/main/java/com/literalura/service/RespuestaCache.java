@@ -0,0 +1,147 @@
+package com.literalura.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché local de respuestas de Gutendex, indexada por la URL normalizada.
+ * Acotada por cantidad de entradas y por bytes (desaloja la menos usada), con TTL;
+ * las entradas vencidas se conservan para revalidarlas con ETag / Last-Modified.
+ * Si se configura un archivo, se guarda al apagar y se recarga al arrancar.
+ */
+@Component
+public class RespuestaCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RespuestaCache.class);
+
+    /** Cuerpo ya descomprimido más los validadores HTTP de la respuesta. */
+    public record Entrada(byte[] cuerpo, String etag, String lastModified, long guardadaEnMillis) {
+        public Entrada renovada() {
+            return new Entrada(cuerpo, etag, lastModified, System.currentTimeMillis());
+        }
+    }
+
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private final int maxEntradas;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Path archivo;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private long bytes;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong revalidaciones = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong vencidasServidas = new AtomicLong();
+
+    public RespuestaCache(@Value("${literalura.cache.max-entradas:500}") int maxEntradas,
+                          @Value("${literalura.cache.max-bytes:33554432}") long maxBytes,
+                          @Value("${literalura.cache.ttl:PT10M}") Duration ttl,
+                          @Value("${literalura.cache.archivo:}") String archivo) {
+        this.maxEntradas = Math.max(0, maxEntradas);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.ttl = ttl;
+        this.archivo = (archivo == null || archivo.isBlank()) ? null : Path.of(archivo);
+    }
+
+    public boolean habilitada() {
+        return maxEntradas > 0 && maxBytes > 0;
+    }
+
+    /** Clave canónica: esquema/host en minúsculas, sin '/' final en la ruta y parámetros ordenados. */
+    public static String normalizar(String url) {
+        URI u = URI.create(url.trim());
+        String path = u.getRawPath() == null ? "" : u.getRawPath();
+        if (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        String query = "";
+        if (u.getRawQuery() != null && !u.getRawQuery().isBlank()) {
+            String[] params = u.getRawQuery().split("&");
+            Arrays.sort(params);
+            query = "?" + String.join("&", params);
+        }
+        String esquema = u.getScheme() == null ? "" : u.getScheme().toLowerCase(Locale.ROOT) + "://";
+        String host = u.getRawAuthority() == null ? "" : u.getRawAuthority().toLowerCase(Locale.ROOT);
+        return esquema + host + path + query;
+    }
+
+    public synchronized Optional<Entrada> obtener(String clave) {
+        return Optional.ofNullable(entradas.get(clave));
+    }
+
+    public boolean vigente(Entrada e) {
+        return System.currentTimeMillis() - e.guardadaEnMillis() < ttl.toMillis();
+    }
+
+    public synchronized void guardar(String clave, Entrada e) {
+        if (!habilitada() || e.cuerpo().length > maxBytes) return;
+        Entrada anterior = entradas.put(clave, e);
+        if (anterior != null) bytes -= anterior.cuerpo().length;
+        bytes += e.cuerpo().length;
+        desalojarExcedentes();
+    }
+
+    public void registrarAcierto() { aciertos.incrementAndGet(); }
+    public void registrarFallo() { fallos.incrementAndGet(); }
+    public void registrarRevalidacion() { revalidaciones.incrementAndGet(); }
+    public void registrarVencidaServida() { vencidasServidas.incrementAndGet(); }
+
+    public long getAciertos() { return aciertos.get(); }
+    public long getFallos() { return fallos.get(); }
+    public long getRevalidaciones() { return revalidaciones.get(); }
+    public long getDesalojos() { return desalojos.get(); }
+    public long getVencidasServidas() { return vencidasServidas.get(); }
+    public synchronized int getEntradas() { return entradas.size(); }
+    public synchronized long getBytes() { return bytes; }
+
+    // Recorre en orden de acceso: las primeras son las menos usadas recientemente
+    private void desalojarExcedentes() {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while ((entradas.size() > maxEntradas || bytes > maxBytes) && it.hasNext()) {
+            bytes -= it.next().cuerpo().length;
+            it.remove();
+            desalojos.incrementAndGet();
+        }
+    }
+
+    @PostConstruct
+    synchronized void cargar() {
+        if (archivo == null || !habilitada() || !Files.isRegularFile(archivo)) return;
+        try {
+            LinkedHashMap<String, Entrada> leidas = mapper.readValue(archivo.toFile(),
+                    new TypeReference<LinkedHashMap<String, Entrada>>() {});
+            leidas.forEach(this::guardar);
+            log.info("Caché de Gutendex cargada desde {} ({} entradas)", archivo, entradas.size());
+        } catch (IOException e) {
+            log.warn("No se pudo leer la caché de Gutendex en {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    synchronized void persistir() {
+        if (archivo == null || !habilitada()) return;
+        try {
+            if (archivo.getParent() != null) Files.createDirectories(archivo.getParent());
+            Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            mapper.writeValue(tmp.toFile(), new LinkedHashMap<>(entradas));
+            Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la caché de Gutendex en {}: {}", archivo, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.literalura.service;
+
+import java.time.Duration;
+
+/**
+ * Resultado de una carga masiva desde un volcado local.
+ * 'duplicados' son libros repetidos en el archivo (gana la última aparición) y 'omitidos' los que no traen id.
+ */
+public record ResultadoCargaMasiva(int libros, int duplicados, int omitidos, int nuevos, int actualizados,
+                                   int autores, int autoresNuevos, Duration duracion) {
+
+    public double librosPorSegundo() {
+        double s = duracion.toNanos() / 1e9;
+        return s > 0 ? libros / s : 0;
+    }
+}
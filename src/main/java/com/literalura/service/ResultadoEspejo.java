@@ -0,0 +1,29 @@
+package com.literalura.service;
+
+import java.time.Duration;
+
+/** Resultado de una corrida del espejo del catálogo, con el rendimiento de punta a punta. */
+public record ResultadoEspejo(int paginasTotales, int paginasGuardadas, int paginasOmitidas, int paginasFallidas,
+                              int filas, int nuevos, int actualizados, int consultasEvitadas, Duration duracion) {
+
+    public boolean completo() {
+        return paginasGuardadas + paginasOmitidas == paginasTotales;
+    }
+
+    public double consultasEvitadasCada10k() {
+        return filas > 0 ? consultasEvitadas * 10_000.0 / filas : 0;
+    }
+
+    public double paginasPorSegundo() {
+        return porSegundo(paginasGuardadas);
+    }
+
+    public double filasPorSegundo() {
+        return porSegundo(filas);
+    }
+
+    private double porSegundo(int n) {
+        double s = duracion.toNanos() / 1e9;
+        return s > 0 ? n / s : 0;
+    }
+}
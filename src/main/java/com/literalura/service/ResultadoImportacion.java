@@ -0,0 +1,40 @@
+package com.literalura.service;
+
+import com.literalura.domain.LibroResumen;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado de un import paginado: libros guardados, métricas de rendimiento y cuántas filas
+ * se escribieron de verdad (nuevas o modificadas); el resto ya estaba al día.
+ * 'consultasEvitadas' cuenta las consultas de autores que resolvió el mapa de identidad.
+ */
+public record ResultadoImportacion(List<LibroResumen> libros, int paginas, int filas,
+                                   int nuevos, int actualizados, int consultasEvitadas, Duration duracion) {
+
+    public static ResultadoImportacion vacio() {
+        return new ResultadoImportacion(List.of(), 0, 0, 0, 0, 0, Duration.ZERO);
+    }
+
+    public double consultasEvitadasCada10k() {
+        return filas > 0 ? consultasEvitadas * 10_000.0 / filas : 0;
+    }
+
+    public int sinCambios() {
+        return filas - nuevos - actualizados;
+    }
+
+    public double paginasPorSegundo() {
+        return porSegundo(paginas);
+    }
+
+    public double filasPorSegundo() {
+        return porSegundo(filas);
+    }
+
+    private double porSegundo(int cantidad) {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos <= 0 ? 0 : cantidad / segundos;
+    }
+}
@@ -0,0 +1,16 @@
+package com.literalura.service;
+
+import java.time.Duration;
+
+/**
+ * Resumen de una corrida por lotes: cuántos comandos terminaron bien, sin resultado o con error,
+ * y las latencias por comando en ms (desde que un hilo lo toma, sin la espera en la cola).
+ */
+public record ResultadoLote(int comandos, int ok, int noEncontrados, int errores, int paralelismo,
+                            Duration duracion, long p50Milis, long p95Milis, long maxMilis) {
+
+    public double comandosPorSegundo() {
+        double s = duracion.toNanos() / 1e9;
+        return s > 0 ? comandos / s : 0;
+    }
+}
@@ -0,0 +1,289 @@
+package com.literalura.service;
+
+import com.literalura.domain.LibroResumen;
+import com.literalura.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ranking de descargas mantenido en memoria: top K global y top K por idioma.
+ * Se reconstruye desde la DB al arrancar y cada guardado confirmado lo actualiza en el lugar,
+ * así las opciones de top no consultan la base. Cada top es un skip list concurrente acotado
+ * a K, sin un lock global: las actualizaciones de un mismo libro se serializan por id.
+ */
+@Component
+public class TablaPosiciones {
+
+    private static final Logger log = LoggerFactory.getLogger(TablaPosiciones.class);
+
+    // Mismo orden que las consultas de top: descargas desc, id desc
+    private static final Comparator<LibroResumen> ORDEN = Comparator
+            .comparingInt((LibroResumen l) -> l.descargas() == null ? 0 : l.descargas()).reversed()
+            .thenComparing(LibroResumen::id, Comparator.reverseOrder());
+
+    private final LibroRepository libroRepository;
+    private final int k;
+    private volatile TopK global;
+    private final ConcurrentHashMap<String, TopK> porIdioma = new ConcurrentHashMap<>();
+    private volatile boolean inicializada;
+
+    // ===== Orden de los cambios =====
+    // Versiones tomadas antes del commit y todavía sin aplicar (ni descartadas por un rollback)
+    private final Object lockVersiones = new Object();
+    private long versiones;
+    private final ConcurrentSkipListSet<Long> pendientes = new ConcurrentSkipListSet<>();
+    // Mayor versión aplicada por libro. Sobrevive a que el libro salga de los tops; se poda cuando ya no
+    // queda pendiente ninguna versión menor, así que sólo guarda los libros cambiados durante un commit en vuelo
+    private final ConcurrentHashMap<Long, Long> marcas = new ConcurrentHashMap<>();
+    // Llamadas a aplicar(): una reconstrucción que ve cambiar este número mientras lee no es confiable
+    private final AtomicLong aplicados = new AtomicLong();
+
+    public TablaPosiciones(LibroRepository libroRepository,
+                           @Value("${literalura.posiciones.k:100}") int k) {
+        this.libroRepository = libroRepository;
+        this.k = Math.max(1, k);
+        this.global = new TopK(this.k, 0);
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void alArrancar() {
+        try {
+            reconstruirTodo();
+        } catch (RuntimeException e) {
+            // Sin DB al arrancar no es fatal: se reintenta en la primera lectura
+            log.warn("No se pudo construir la tabla de posiciones: {}", e.getMessage());
+        }
+    }
+
+    /** Top n global, o vacío si n supera K (el llamador debe ir a la DB). */
+    public Optional<List<LibroResumen>> topGlobal(int n) {
+        if (n > k) return Optional.empty();
+        asegurarInicializada();
+        TopK t = global;
+        if (!t.completo) t = reconstruirGlobal();
+        return Optional.of(t.primeros(n));
+    }
+
+    /** Top n del idioma, o vacío si n supera K. */
+    public Optional<List<LibroResumen>> topIdioma(String idioma, int n) {
+        if (n > k) return Optional.empty();
+        asegurarInicializada();
+        String clave = normalizar(idioma);
+        TopK t = porIdioma.get(clave);
+        if (t == null) return Optional.of(List.of());
+        if (!t.completo) t = reconstruirIdioma(clave, t);
+        return Optional.of(t.primeros(n));
+    }
+
+    /**
+     * Versión para los cambios de una transacción. Se pide con las filas ya escritas y antes del commit:
+     * de dos transacciones que escriben el mismo libro, la segunda espera el commit de la primera, así que
+     * su versión es mayor. Queda pendiente hasta {@link #aplicar} o {@link #descartarVersion}.
+     */
+    public long siguienteVersion() {
+        synchronized (lockVersiones) {
+            long v = ++versiones;
+            pendientes.add(v);
+            return v;
+        }
+    }
+
+    /** La transacción que tomó la versión no confirmó: sus cambios no van a llegar. */
+    public void descartarVersion(long version) {
+        pendientes.remove(version);
+    }
+
+    /**
+     * Aplica cambios ya confirmados en la DB. Pueden llegar fuera de orden (los afterCommit de
+     * transacciones concurrentes no se ordenan): un cambio más viejo que el último aplicado a ese libro,
+     * o que la lectura de la DB de un top, se ignora.
+     */
+    public void aplicar(Collection<CacheLecturas.CambioLibro> cambios) {
+        aplicados.incrementAndGet();
+        try {
+            for (CacheLecturas.CambioLibro c : cambios) {
+                // Por libro, bajo la marca: dos cambios del mismo libro no se intercalan entre los tops
+                marcas.compute(c.libro().id(), (id, marca) -> {
+                    if (marca != null && marca > c.version()) return marca; // llegó tarde
+                    aplicarCambio(c);
+                    return c.version();
+                });
+            }
+        } finally {
+            for (CacheLecturas.CambioLibro c : cambios) pendientes.remove(c.version());
+            podarMarcas();
+        }
+    }
+
+    private void aplicarCambio(CacheLecturas.CambioLibro c) {
+        LibroResumen libro = c.libro();
+        long v = c.version();
+        TopK g = global;
+        if (v > g.piso) g.actualizar(libro);
+
+        String nuevo = normalizar(libro.idioma());
+        if (!c.nuevo()) {
+            String anterior = normalizar(c.idiomaAnterior());
+            if (!anterior.equals(nuevo)) {
+                TopK viejo = porIdioma.get(anterior);
+                if (viejo != null && v > viejo.piso) viejo.quitar(libro.id());
+            }
+        }
+        TopK t = porIdioma.computeIfAbsent(nuevo, i -> new TopK(k, 0));
+        if (v > t.piso) t.actualizar(libro);
+    }
+
+    // Una marca sólo hace falta mientras pueda llegar un cambio con versión menor
+    private void podarMarcas() {
+        Long minima;
+        synchronized (lockVersiones) {
+            minima = pendientes.isEmpty() ? versiones + 1 : pendientes.first();
+        }
+        long limite = minima;
+        marcas.values().removeIf(m -> m < limite);
+    }
+
+    /** Vuelve a leer todo desde la DB (p. ej. tras una carga masiva). */
+    public synchronized void reconstruirTodo() {
+        Lectura lectura = new Lectura();
+        TopK nuevoGlobal = new TopK(k, lectura.piso);
+        libroRepository.topResumen(PageRequest.of(0, k)).forEach(nuevoGlobal::actualizar);
+
+        Map<String, TopK> nuevos = new HashMap<>();
+        for (LibroRepository.FilaResumen f : libroRepository.topResumenPorCadaIdioma(k)) {
+            LibroResumen l = new LibroResumen(f.getId().longValue(), f.getTitulo(), f.getAutor(), f.getIdioma(),
+                    f.getDescargas() == null ? null : f.getDescargas().intValue());
+            nuevos.computeIfAbsent(normalizar(l.idioma()), i -> new TopK(k, lectura.piso)).actualizar(l);
+        }
+        if (!lectura.confiable()) {
+            nuevoGlobal.completo = false;
+            nuevos.values().forEach(t -> t.completo = false);
+        }
+        global = nuevoGlobal;
+        porIdioma.clear();
+        porIdioma.putAll(nuevos);
+        inicializada = true;
+        log.info("Tabla de posiciones construida: top {} global y {} idiomas", k, nuevos.size());
+    }
+
+    private void asegurarInicializada() {
+        if (!inicializada) {
+            synchronized (this) {
+                if (!inicializada) reconstruirTodo();
+            }
+        }
+    }
+
+    private TopK reconstruirGlobal() {
+        Lectura lectura = new Lectura();
+        TopK nuevo = new TopK(k, lectura.piso);
+        libroRepository.topResumen(PageRequest.of(0, k)).forEach(nuevo::actualizar);
+        // Si llegaron cambios mientras se leía la DB, se vuelve a reconstruir en la próxima lectura
+        if (!lectura.confiable()) nuevo.completo = false;
+        global = nuevo;
+        return nuevo;
+    }
+
+    private TopK reconstruirIdioma(String clave, TopK viejo) {
+        Lectura lectura = new Lectura();
+        TopK nuevo = new TopK(k, lectura.piso);
+        libroRepository.topResumenPorIdioma(clave, PageRequest.of(0, k)).forEach(nuevo::actualizar);
+        if (!lectura.confiable()) nuevo.completo = false;
+        porIdioma.replace(clave, viejo, nuevo);
+        return nuevo;
+    }
+
+    /**
+     * Una lectura de la DB para reconstruir tops. 'piso' es la última versión repartida antes de la consulta:
+     * los cambios con versión hasta el piso se ignoran en los tops nuevos (la consulta ya debería verlos).
+     * No es así si uno de ellos confirmó después de que empezó la consulta: por eso la lectura no es confiable
+     * si llegaron cambios mientras se leía o si al terminar queda pendiente alguna versión hasta el piso.
+     */
+    private final class Lectura {
+        final long piso;
+        final long aplicadosAntes;
+
+        Lectura() {
+            synchronized (lockVersiones) {
+                piso = versiones;
+            }
+            aplicadosAntes = aplicados.get();
+        }
+
+        boolean confiable() {
+            return aplicados.get() == aplicadosAntes && pendientes.floor(piso) == null;
+        }
+    }
+
+    private static String normalizar(String idioma) {
+        return idioma == null ? "" : idioma.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Top K concurrente. Si sale alguien que sí pertenecía al top, queda incompleto hasta reconstruirse. */
+    static final class TopK {
+        private final int capacidad;
+        // Versión de la lectura de la DB que lo armó (0 si no salió de una lectura)
+        private final long piso;
+        private final ConcurrentSkipListSet<LibroResumen> orden = new ConcurrentSkipListSet<>(ORDEN);
+        private final ConcurrentHashMap<Long, LibroResumen> porId = new ConcurrentHashMap<>();
+        private volatile boolean completo = true;
+
+        TopK(int capacidad, long piso) {
+            this.capacidad = capacidad;
+            this.piso = piso;
+        }
+
+        void actualizar(LibroResumen libro) {
+            porId.compute(libro.id(), (id, anterior) -> {
+                boolean bajo = false;
+                if (anterior != null) {
+                    orden.remove(anterior);
+                    bajo = orden.size() + 1 >= capacidad && ORDEN.compare(libro, anterior) > 0;
+                }
+                orden.add(libro);
+                // Bajó hasta el último lugar de un top lleno: algún libro de afuera podría superarlo ahora
+                if (bajo && ORDEN.compare(orden.last(), libro) == 0) completo = false;
+                return libro;
+            });
+            recortar();
+        }
+
+        void quitar(Long id) {
+            porId.computeIfPresent(id, (i, anterior) -> {
+                if (orden.remove(anterior) && orden.size() + 1 >= capacidad) completo = false;
+                return null;
+            });
+        }
+
+        List<LibroResumen> primeros(int n) {
+            List<LibroResumen> r = new ArrayList<>(Math.min(n, capacidad));
+            for (LibroResumen l : orden) {
+                if (r.size() >= n) break;
+                r.add(l);
+            }
+            return r;
+        }
+
+        private void recortar() {
+            while (orden.size() > capacidad) {
+                LibroResumen ultimo = orden.pollLast();
+                if (ultimo == null) break;
+                porId.remove(ultimo.id(), ultimo);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.literalura.service;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalescencia de llamadas ("single-flight"): mientras hay una llamada en curso para una clave,
+ * las demás con la misma clave esperan y comparten su resultado (o su error) en lugar de repetirla.
+ */
+final class VueloUnico<V> {
+
+    @FunctionalInterface
+    interface Llamada<V> {
+        V ejecutar() throws IOException, InterruptedException;
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> enVuelo = new ConcurrentHashMap<>();
+    private final AtomicLong compartidas = new AtomicLong();
+
+    V ejecutar(String clave, Llamada<V> llamada) throws IOException, InterruptedException {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enVuelo.putIfAbsent(clave, propia);
+        if (existente != null) {
+            compartidas.incrementAndGet();
+            return esperar(existente);
+        }
+        try {
+            V valor = llamada.ejecutar();
+            propia.complete(valor);
+            return valor;
+        } catch (IOException | InterruptedException | RuntimeException | Error e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Se quita al terminar: la próxima llamada con esta clave sale de nuevo (o la sirve la caché)
+            enVuelo.remove(clave, propia);
+        }
+    }
+
+    /** Llamadas que se resolvieron esperando a otra en lugar de salir a la red. */
+    long getCompartidas() {
+        return compartidas.get();
+    }
+
+    private static <V> V esperar(CompletableFuture<V> f) throws IOException, InterruptedException {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) throw io;
+            if (causa instanceof RuntimeException re) throw re;
+            if (causa instanceof Error err) throw err;
+            // La llamada original fue interrumpida; este hilo no, así que se informa como falla de E/S
+            throw new IOException("La llamada compartida se interrumpió", causa);
+        }
+    }
+}
@@ -1,19 +1,15 @@
 package com.literalura.service.dto;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+/** Autor de Gutendex; los años desconocidos (null en el JSON) valen {@link #SIN_ANIO}. */
+public record ApiAuthorDTO(String name, int birthYear, int deathYear) {
 
-@JsonIgnoreProperties(ignoreUnknown = true)
-public class ApiAuthorDTO {
-    private String name;
-    private Integer birth_year;
-    private Integer death_year;
+    public static final int SIN_ANIO = Integer.MIN_VALUE;
 
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public Integer nacimiento() {
+        return birthYear == SIN_ANIO ? null : birthYear;
+    }
 
-    public Integer getBirth_year() { return birth_year; }
-    public void setBirth_year(Integer birth_year) { this.birth_year = birth_year; }
-
-    public Integer getDeath_year() { return death_year; }
-    public void setDeath_year(Integer death_year) { this.death_year = death_year; }
+    public Integer fallecimiento() {
+        return deathYear == SIN_ANIO ? null : deathYear;
+    }
 }
@@ -1,29 +1,17 @@
 package com.literalura.service.dto;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-
 import java.util.List;
 
-@JsonIgnoreProperties(ignoreUnknown = true)
-public class ApiBookDTO {
-    private Integer id;
-    private String title;
-    private List<ApiAuthorDTO> authors;
-    private List<String> languages;
-    private Integer download_count;
-
-    public Integer getId() { return id; }
-    public void setId(Integer id) { this.id = id; }
-
-    public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
-
-    public List<ApiAuthorDTO> getAuthors() { return authors; }
-    public void setAuthors(List<ApiAuthorDTO> authors) { this.authors = authors; }
+/**
+ * Libro de Gutendex con sólo los campos que usa la aplicación (el resto se salta al decodificar).
+ * Inmutable; 'authors' y 'languages' nunca son null y las descargas ausentes valen 0.
+ */
+public record ApiBookDTO(int id, String title, List<ApiAuthorDTO> authors, List<String> languages, int downloadCount) {
 
-    public List<String> getLanguages() { return languages; }
-    public void setLanguages(List<String> languages) { this.languages = languages; }
+    /** Gutendex siempre manda id; un 0 es una fila sin id (p. ej. en un volcado incompleto). */
+    public static final int SIN_ID = 0;
 
-    public Integer getDownload_count() { return download_count; }
-    public void setDownload_count(Integer download_count) { this.download_count = download_count; }
+    public boolean tieneId() {
+        return id != SIN_ID;
+    }
 }
@@ -0,0 +1,184 @@
+package com.literalura.service.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodificador selectivo de respuestas de Gutendex, token a token.
+ * Sólo materializa los campos que usa la aplicación; 'formats', 'subjects', 'bookshelves', 'summaries'
+ * y cualquier otro campo se saltan sin crear sus cadenas. Los idiomas y los nombres de autor se internan.
+ * Es seguro compartirlo entre hilos.
+ */
+public final class DecodificadorGutendex {
+
+    private final JsonFactory factory = new JsonFactory();
+    private final TablaCadenas idiomas = new TablaCadenas(8);
+    private final TablaCadenas nombres = new TablaCadenas(14);
+
+    public ApiResponseDTO pagina(byte[] json) throws IOException {
+        try (JsonParser p = factory.createParser(json)) {
+            return pagina(p);
+        }
+    }
+
+    public ApiResponseDTO pagina(InputStream json) throws IOException {
+        try (JsonParser p = factory.createParser(json)) {
+            return pagina(p);
+        }
+    }
+
+    /** Parser sobre el que leer varios libros con {@link #libro(JsonParser)} (p. ej. un volcado NDJSON). */
+    public JsonParser parser(InputStream json) throws IOException {
+        return factory.createParser(json);
+    }
+
+    private ApiResponseDTO pagina(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) throw new JsonParseException(p, "Se esperaba una página de Gutendex");
+        int count = 0;
+        String next = null, previous = null;
+        List<ApiBookDTO> results = List.of();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = p.currentName();
+            JsonToken valor = p.nextToken();
+            switch (campo) {
+                case "count" -> count = entero(p, valor, 0);
+                case "next" -> next = texto(p, valor);
+                case "previous" -> previous = texto(p, valor);
+                case "results" -> results = libros(p, valor);
+                default -> p.skipChildren();
+            }
+        }
+        return new ApiResponseDTO(count, next, previous, results);
+    }
+
+    private List<ApiBookDTO> libros(JsonParser p, JsonToken valor) throws IOException {
+        if (valor != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return List.of();
+        }
+        List<ApiBookDTO> libros = new ArrayList<>(32); // tamaño de página de Gutendex
+        for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+            if (t == JsonToken.START_OBJECT) libros.add(libro(p));
+            else p.skipChildren();
+        }
+        return Collections.unmodifiableList(libros);
+    }
+
+    /**
+     * Lee un libro con el parser en su START_OBJECT o en su primer campo; lo deja en su END_OBJECT.
+     * Un libro sin id vuelve con {@link ApiBookDTO#SIN_ID}.
+     */
+    public ApiBookDTO libro(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+        int id = ApiBookDTO.SIN_ID, descargas = 0;
+        String titulo = null;
+        List<ApiAuthorDTO> autores = List.of();
+        List<String> lenguas = List.of();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String campo = p.currentName();
+            JsonToken valor = p.nextToken();
+            switch (campo) {
+                case "id" -> id = entero(p, valor, ApiBookDTO.SIN_ID);
+                case "title" -> titulo = texto(p, valor);
+                case "authors" -> autores = autores(p, valor);
+                case "languages" -> lenguas = idiomas(p, valor);
+                case "download_count" -> descargas = entero(p, valor, 0);
+                default -> p.skipChildren();
+            }
+        }
+        if (t != JsonToken.END_OBJECT) throw new JsonParseException(p, "Libro de Gutendex mal formado");
+        return new ApiBookDTO(id, titulo, autores, lenguas, descargas);
+    }
+
+    // Casi todos los libros tienen un solo autor y un solo idioma: List.of(x) evita el ArrayList
+
+    private List<ApiAuthorDTO> autores(JsonParser p, JsonToken valor) throws IOException {
+        if (valor != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return List.of();
+        }
+        List<ApiAuthorDTO> autores = null;
+        ApiAuthorDTO primero = null;
+        for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            ApiAuthorDTO autor = autor(p);
+            if (primero == null) {
+                primero = autor;
+            } else {
+                if (autores == null) {
+                    autores = new ArrayList<>(4);
+                    autores.add(primero);
+                }
+                autores.add(autor);
+            }
+        }
+        if (autores != null) return Collections.unmodifiableList(autores);
+        return primero == null ? List.of() : List.of(primero);
+    }
+
+    private ApiAuthorDTO autor(JsonParser p) throws IOException {
+        String nombre = null;
+        int nacimiento = ApiAuthorDTO.SIN_ANIO, fallecimiento = ApiAuthorDTO.SIN_ANIO;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = p.currentName();
+            JsonToken valor = p.nextToken();
+            switch (campo) {
+                case "name" -> nombre = valor == JsonToken.VALUE_STRING ? nombres.de(p) : texto(p, valor);
+                case "birth_year" -> nacimiento = entero(p, valor, ApiAuthorDTO.SIN_ANIO);
+                case "death_year" -> fallecimiento = entero(p, valor, ApiAuthorDTO.SIN_ANIO);
+                default -> p.skipChildren();
+            }
+        }
+        return new ApiAuthorDTO(nombre, nacimiento, fallecimiento);
+    }
+
+    private List<String> idiomas(JsonParser p, JsonToken valor) throws IOException {
+        if (valor != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return List.of();
+        }
+        List<String> lenguas = null;
+        String primero = null;
+        for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+            if (t != JsonToken.VALUE_STRING) {
+                p.skipChildren();
+                continue;
+            }
+            String idioma = idiomas.de(p);
+            if (primero == null) {
+                primero = idioma;
+            } else {
+                if (lenguas == null) {
+                    lenguas = new ArrayList<>(4);
+                    lenguas.add(primero);
+                }
+                lenguas.add(idioma);
+            }
+        }
+        if (lenguas != null) return Collections.unmodifiableList(lenguas);
+        return primero == null ? List.of() : List.of(primero);
+    }
+
+    private static int entero(JsonParser p, JsonToken valor, int defecto) throws IOException {
+        if (valor == JsonToken.VALUE_NUMBER_INT) return p.getIntValue();
+        p.skipChildren();
+        return defecto;
+    }
+
+    private static String texto(JsonParser p, JsonToken valor) throws IOException {
+        if (valor == JsonToken.VALUE_STRING) return p.getText();
+        p.skipChildren();
+        return null;
+    }
+}
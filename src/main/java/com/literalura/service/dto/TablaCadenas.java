@@ -0,0 +1,47 @@
+package com.literalura.service.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Internado de cadenas que se repiten mucho (códigos de idioma, nombres de autor).
+ * Busca directamente sobre el buffer de caracteres del parser: si la cadena ya está, no se crea un String nuevo.
+ * Tabla de acceso directo de tamaño fijo; una colisión reemplaza la entrada anterior. Sin locks: una carrera
+ * sólo pierde un acierto (los String son inmutables y se publican de forma segura).
+ */
+final class TablaCadenas {
+
+    private final String[] entradas;
+    private final int mascara;
+
+    TablaCadenas(int potenciaDeDos) {
+        this.entradas = new String[1 << potenciaDeDos];
+        this.mascara = entradas.length - 1;
+    }
+
+    /** El valor de texto actual del parser, internado. */
+    String de(JsonParser p) throws IOException {
+        char[] buf = p.getTextCharacters();
+        int inicio = p.getTextOffset();
+        int largo = p.getTextLength();
+
+        int h = 0;
+        for (int i = 0; i < largo; i++) h = 31 * h + buf[inicio + i];
+        int slot = (h ^ (h >>> 16)) & mascara;
+
+        String previa = entradas[slot];
+        if (previa != null && iguales(previa, buf, inicio, largo)) return previa;
+        String nueva = new String(buf, inicio, largo);
+        entradas[slot] = nueva;
+        return nueva;
+    }
+
+    private static boolean iguales(String s, char[] buf, int inicio, int largo) {
+        if (s.length() != largo) return false;
+        for (int i = 0; i < largo; i++) {
+            if (s.charAt(i) != buf[inicio + i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+-- Esquema de la primera versión de la aplicación, tal como lo creaba ddl-auto=update (ids IDENTITY).
+-- Una base existente sin historial de Flyway se toma como esta versión (spring.flyway.baseline-version=1)
+-- y recibe las migraciones siguientes. Desde V2 todo es idempotente: también sirve para bases creadas por
+-- versiones intermedias que ya tenían parte de estos cambios.
+
+CREATE TABLE autores (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY,
+    nombre             varchar(255) NOT NULL,
+    anio_nacimiento    integer,
+    anio_fallecimiento integer,
+    CONSTRAINT autores_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_autor_nombre UNIQUE (nombre)
+);
+
+CREATE TABLE libros (
+    id        bigint GENERATED BY DEFAULT AS IDENTITY,
+    titulo    varchar(255) NOT NULL,
+    idioma    varchar(10),
+    descargas integer,
+    autor_id  bigint,
+    CONSTRAINT libros_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_libros_autor FOREIGN KEY (autor_id) REFERENCES autores (id)
+);
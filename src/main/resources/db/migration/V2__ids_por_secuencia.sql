@@ -0,0 +1,13 @@
+-- Los ids se reservan de 50 en 50 (allocationSize de las entidades): así Hibernate envía los inserts en lotes.
+CREATE SEQUENCE IF NOT EXISTS autores_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS libros_seq START WITH 1 INCREMENT BY 50;
+
+-- Las secuencias arrancan después de los ids ya usados por IDENTITY (o por una secuencia anterior)
+SELECT setval('autores_seq', GREATEST((SELECT last_value FROM autores_seq),
+                                      (SELECT COALESCE(MAX(id), 0) + 1 FROM autores)));
+SELECT setval('libros_seq', GREATEST((SELECT last_value FROM libros_seq),
+                                     (SELECT COALESCE(MAX(id), 0) + 1 FROM libros)));
+
+-- Desde ahora los ids sólo salen de las secuencias
+ALTER TABLE autores ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE libros ALTER COLUMN id DROP IDENTITY IF EXISTS;
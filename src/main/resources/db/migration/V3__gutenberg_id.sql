@@ -0,0 +1,10 @@
+-- Cada libro se identifica por su id de Gutenberg; los guardados antes de esta columna la completan al
+-- volver a guardarse (se reconocen por título).
+ALTER TABLE libros ADD COLUMN IF NOT EXISTS gutenberg_id integer;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_libro_gutenberg_id') THEN
+        ALTER TABLE libros ADD CONSTRAINT uk_libro_gutenberg_id UNIQUE (gutenberg_id);
+    END IF;
+END $$;
@@ -0,0 +1,22 @@
+-- Búsquedas en bloque por nombre/título sin distinguir mayúsculas (upserts por página)
+CREATE INDEX IF NOT EXISTS idx_autores_nombre_lower ON autores (lower(nombre));
+CREATE INDEX IF NOT EXISTS idx_libros_titulo_lower ON libros (lower(titulo));
+
+-- Búsqueda por fragmento (lower(x) like '%q%') servida por índices trigram en lugar de scans secuenciales
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_libros_titulo_trgm ON libros USING gin (lower(titulo) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_autores_nombre_trgm ON autores USING gin (lower(nombre) gin_trgm_ops);
+
+-- Paginación por keyset de libros: (descargas desc, id desc), global y por idioma
+CREATE INDEX IF NOT EXISTS idx_libros_descargas_id ON libros (descargas DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_libros_idioma_descargas_id ON libros (lower(idioma), descargas DESC, id DESC);
+
+-- Vida de un autor como rango [nacimiento, fallecimiento); un extremo nulo = sin límite.
+-- Datos inconsistentes (fallecimiento < nacimiento) dan un rango vacío en vez de un error.
+CREATE OR REPLACE FUNCTION autor_vida(nacimiento integer, fallecimiento integer) RETURNS int4range
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS
+$$ SELECT CASE WHEN fallecimiento < nacimiento THEN 'empty'::int4range
+               ELSE int4range(nacimiento, fallecimiento, '[)') END $$;
+
+-- Índice GiST sobre el rango: sirve "vivos en el año X" (@>) y "vivos en algún año del rango" (&&)
+CREATE INDEX IF NOT EXISTS idx_autores_vida ON autores USING gist (autor_vida(anio_nacimiento, anio_fallecimiento));
@@ -0,0 +1,7 @@
+-- Páginas del catálogo ya espejadas (opción 13), para reanudar una corrida cortada
+CREATE TABLE IF NOT EXISTS espejo_paginas (
+    pagina     integer                  NOT NULL,
+    filas      integer                  NOT NULL,
+    completada timestamp with time zone NOT NULL,
+    CONSTRAINT espejo_paginas_pkey PRIMARY KEY (pagina)
+);
@@ -0,0 +1,31 @@
+-- Todos los autores e idiomas de un libro, en el orden de Gutendex (posición 0 = principal)
+CREATE TABLE IF NOT EXISTS libro_autores (
+    libro_id bigint  NOT NULL,
+    autor_id bigint  NOT NULL,
+    posicion integer NOT NULL,
+    CONSTRAINT libro_autores_pkey PRIMARY KEY (libro_id, posicion),
+    CONSTRAINT fk_libro_autores_libro FOREIGN KEY (libro_id) REFERENCES libros (id),
+    CONSTRAINT fk_libro_autores_autor FOREIGN KEY (autor_id) REFERENCES autores (id)
+);
+
+CREATE TABLE IF NOT EXISTS libro_idiomas (
+    libro_id bigint  NOT NULL,
+    idioma   varchar(10),
+    posicion integer NOT NULL,
+    CONSTRAINT libro_idiomas_pkey PRIMARY KEY (libro_id, posicion),
+    CONSTRAINT fk_libro_idiomas_libro FOREIGN KEY (libro_id) REFERENCES libros (id)
+);
+
+-- Los libros guardados antes de estas tablas se completan con su autor e idioma principales
+-- (sólo los que todavía no tienen filas)
+INSERT INTO libro_autores (libro_id, autor_id, posicion)
+SELECT l.id, l.autor_id, 0 FROM libros l
+WHERE l.autor_id IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM libro_autores la WHERE la.libro_id = l.id);
+INSERT INTO libro_idiomas (libro_id, idioma, posicion)
+SELECT l.id, l.idioma, 0 FROM libros l
+WHERE l.idioma IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM libro_idiomas li WHERE li.libro_id = l.id);
+
+-- Libros de un autor (estadísticas por autor, coautorías)
+CREATE INDEX IF NOT EXISTS idx_libro_autores_autor ON libro_autores (autor_id);
@@ -0,0 +1,126 @@
+package com.literalura;
+
+import com.literalura.service.CacheLecturas;
+import com.literalura.service.MapaAutores;
+import com.literalura.service.TablaPosiciones;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Base de las pruebas de integración: el contexto completo de la aplicación contra un PostgreSQL embebido
+ * (uno por JVM; Flyway crea el esquema al arrancar). Cada prueba parte de tablas vacías y nada sale a la red.
+ * Las métricas quedan activas como en la aplicación: el exportador necesita el registro de Prometheus.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(properties = {
+        "literalura.consola.habilitada=false",
+        // Si una prueba llegara a la API, falla en lugar de consultar Gutendex
+        "literalura.api.base-url=http://127.0.0.1:9/books",
+        "literalura.api.reintentos=0",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "spring.output.ansi.enabled=NEVER"})
+public abstract class PruebaConPostgres {
+
+    private static final EmbeddedPostgres POSTGRES = iniciar();
+
+    @Autowired
+    protected JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private MapaAutores mapaAutores;
+
+    @Autowired
+    private CacheLecturas cacheLecturas;
+
+    @Autowired
+    private TablaPosiciones posiciones;
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registro.add("spring.datasource.username", () -> "postgres");
+        registro.add("spring.datasource.password", () -> "");
+    }
+
+    @BeforeEach
+    void vaciarTablas() {
+        jdbc.execute("truncate libro_autores, libro_idiomas, libros, autores, espejo_paginas");
+        // Lo que se guarda en memoria a partir de las tablas no puede sobrevivir a vaciarlas
+        mapaAutores.invalidarTodo();
+        cacheLecturas.invalidarTodo();
+        posiciones.reconstruirTodo();
+    }
+
+    /** Estadísticas de Hibernate puestas en cero: lo que cuenten después es de la operación que sigue. */
+    protected Statistics estadisticas() {
+        Statistics s = emf.unwrap(SessionFactory.class).getStatistics();
+        s.clear();
+        return s;
+    }
+
+    /**
+     * Siembra 'libros' libros con títulos "Libro {palabra} {n}", descargas distintas, dos autores y dos idiomas
+     * cada uno (10 libros por autor principal). Ids fijos desde 1; las secuencias siguen después.
+     */
+    protected void sembrarLibros(int libros, String palabra) {
+        int autores = Math.max(2, libros / 10);
+        jdbc.update("""
+                insert into autores (id, nombre, anio_nacimiento, anio_fallecimiento)
+                select g, 'Autor ' || g, 1800 + g % 100, 1870 + g % 100 from generate_series(1, ?) g
+                """, autores);
+        jdbc.update("""
+                insert into libros (id, gutenberg_id, titulo, idioma, descargas, autor_id)
+                select g, g, 'Libro ' || ? || ' ' || g, 'en', g * 3, 1 + g % ? from generate_series(1, ?) g
+                """, palabra, autores, libros);
+        jdbc.update("insert into libro_autores (libro_id, autor_id, posicion) select id, autor_id, 0 from libros");
+        jdbc.update("""
+                insert into libro_autores (libro_id, autor_id, posicion)
+                select id, 1 + autor_id % ?, 1 from libros
+                """, autores);
+        jdbc.update("""
+                insert into libro_idiomas (libro_id, idioma, posicion)
+                select id, 'en', 0 from libros union all select id, 'fr', 1 from libros
+                """);
+        jdbc.queryForObject("select setval('autores_seq', (select max(id) + 1 from autores))", Long.class);
+        jdbc.queryForObject("select setval('libros_seq', (select max(id) + 1 from libros))", Long.class);
+    }
+
+    private static EmbeddedPostgres iniciar() {
+        try {
+            // Datos bajo target/ (los borra 'mvn clean'): borrarlos al salir demora más que toda la corrida
+            Path datos = Files.createTempDirectory(Files.createDirectories(Path.of("target")), "postgres-pruebas-");
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                    .setDataDirectory(datos)
+                    .setCleanDataDirectory(false)
+                    .start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignorada) {
+                    // la JVM termina igual
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo iniciar el PostgreSQL embebido", e);
+        }
+    }
+}
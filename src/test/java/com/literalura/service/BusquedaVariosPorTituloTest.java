@@ -0,0 +1,39 @@
+package com.literalura.service;
+
+import com.literalura.PruebaConPostgres;
+import com.literalura.domain.LibroResumen;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** La búsqueda que guarda varios resultados trae de la DB a lo sumo 'max' filas, no todas las coincidencias. */
+class BusquedaVariosPorTituloTest extends PruebaConPostgres {
+
+    @Autowired
+    LiteraluraService service;
+
+    @Test
+    void conMasCoincidenciasQueMaxHidrataSoloMaxFilas() {
+        sembrarLibros(500, "amor");
+        int max = 10;
+
+        Statistics stats = estadisticas();
+        List<LibroResumen> libros = service.buscarYGuardarVariosPorTitulo("amor", max);
+
+        assertThat(libros).hasSize(max);
+        assertThat(libros).isSortedAccordingTo(Comparator.comparing(LibroResumen::descargas).reversed());
+        assertThat(libros.get(0).descargas()).isEqualTo(500 * 3);
+
+        long filas = 0;
+        for (String consulta : stats.getQueries()) {
+            filas += stats.getQueryStatistics(consulta).getExecutionRowCount();
+        }
+        assertThat(filas).as("filas devueltas por las consultas").isBetween(1L, (long) max);
+        assertThat(stats.getEntityLoadCount()).as("entidades hidratadas").isLessThanOrEqualTo(max);
+    }
+}
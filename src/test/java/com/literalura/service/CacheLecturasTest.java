@@ -0,0 +1,81 @@
+package com.literalura.service;
+
+import com.literalura.domain.LibroResumen;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Una carga que leyó la DB antes de un commit no queda en la caché si la invalidación llegó mientras corría. */
+class CacheLecturasTest {
+
+    private static final LibroResumen VIEJO = new LibroResumen(1L, "Libro", "Autor", "es", 10);
+    private static final LibroResumen NUEVO = new LibroResumen(1L, "Libro", "Autor", "es", 50);
+
+    private final CacheLecturas cache = new CacheLecturas(100);
+
+    @Test
+    void topCargadoDuranteLaInvalidacionNoQuedaEnCache() throws Exception {
+        CountDownLatch leyo = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        CompletableFuture<List<LibroResumen>> carga = CompletableFuture.supplyAsync(() ->
+                cache.topIdioma("es", 10, () -> {
+                    leyo.countDown();
+                    esperar(seguir);
+                    return List.of(VIEJO);
+                }));
+        assertThat(leyo.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // El commit y su invalidación ocurren mientras la carga todavía no terminó
+        cache.invalidar(List.of(new CacheLecturas.CambioLibro(NUEVO, false, "es", 10, 1)));
+        seguir.countDown();
+        assertThat(carga.get(5, TimeUnit.SECONDS)).containsExactly(VIEJO);
+
+        assertThat(cache.topIdioma("es", 10, () -> List.of(NUEVO))).containsExactly(NUEVO);
+    }
+
+    @Test
+    void conteoCargadoDuranteLaInvalidacionNoQuedaEnCache() throws Exception {
+        CountDownLatch leyo = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        CompletableFuture<Long> carga = CompletableFuture.supplyAsync(() ->
+                cache.conteoIdioma("es", () -> {
+                    leyo.countDown();
+                    esperar(seguir);
+                    return 1L;
+                }));
+        assertThat(leyo.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.invalidar(List.of(new CacheLecturas.CambioLibro(NUEVO, true, null, null, 1)));
+        seguir.countDown();
+        assertThat(carga.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+
+        assertThat(cache.conteoIdioma("es", () -> 2L)).isEqualTo(2L);
+    }
+
+    @Test
+    void sinInvalidacionesLaCargaQuedaEnCache() {
+        AtomicInteger cargas = new AtomicInteger();
+        cache.topIdioma("es", 10, () -> { cargas.incrementAndGet(); return List.of(VIEJO); });
+        cache.topIdioma("es", 10, () -> { cargas.incrementAndGet(); return List.of(VIEJO); });
+        // Un cambio en otro idioma no toca el top de "es"
+        cache.invalidar(List.of(new CacheLecturas.CambioLibro(
+                new LibroResumen(2L, "Otro", "Autor", "fr", 5), true, null, null, 1)));
+        cache.topIdioma("es", 10, () -> { cargas.incrementAndGet(); return List.of(VIEJO); });
+
+        assertThat(cargas).hasValue(1);
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
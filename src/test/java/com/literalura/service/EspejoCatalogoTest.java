@@ -0,0 +1,177 @@
+package com.literalura.service;
+
+import com.literalura.PruebaConPostgres;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El espejo contra un Gutendex local de {@value #PAGINAS} páginas: cada página se guarda una vez junto con su
+ * punto de control, y una página que falla queda para la corrida siguiente, que sólo pide lo que falta.
+ */
+class EspejoCatalogoTest extends PruebaConPostgres {
+
+    private static final int PAGINAS = 9;
+    private static final int POR_PAGINA = 4;
+    private static final int TRABAJADORES = 3;
+    private static final int FALLA = 6;
+
+    private static final Map<Integer, AtomicInteger> pedidos = new ConcurrentHashMap<>();
+    private static final AtomicInteger enCurso = new AtomicInteger();
+    private static final AtomicInteger maximoEnCurso = new AtomicInteger();
+    private static volatile boolean fallar;
+    private static final HttpServer SERVIDOR = iniciarServidor();
+
+    @Autowired
+    EspejoCatalogo espejo;
+
+    @DynamicPropertySource
+    static void gutendexLocal(DynamicPropertyRegistry registro) {
+        registro.add("literalura.api.base-url",
+                () -> "http://127.0.0.1:" + SERVIDOR.getAddress().getPort() + "/books");
+        registro.add("literalura.api.peticiones-por-segundo", () -> "0");
+        // Sin caché de respuestas: cada página pedida llega al servidor
+        registro.add("literalura.cache.max-entradas", () -> "0");
+        registro.add("literalura.espejo.trabajadores", () -> String.valueOf(TRABAJADORES));
+    }
+
+    @BeforeEach
+    void reiniciarServidor() {
+        pedidos.clear();
+        maximoEnCurso.set(0);
+        fallar = false;
+    }
+
+    @Test
+    void guardaCadaPaginaUnaVezConSuPuntoDeControl() {
+        ResultadoEspejo r = espejo.espejar();
+
+        assertThat(r.completo()).isTrue();
+        assertThat(r.paginasTotales()).isEqualTo(PAGINAS);
+        assertThat(r.paginasGuardadas()).isEqualTo(PAGINAS);
+        assertThat(r.filas()).isEqualTo(PAGINAS * POR_PAGINA);
+        assertThat(paginasConPuntoDeControl()).containsExactlyElementsOf(IntStream.rangeClosed(1, PAGINAS).boxed().toList());
+        IntStream.rangeClosed(1, PAGINAS).forEach(p -> assertThat(pedidos.get(p)).as("pedidos de la página %d", p).hasValue(1));
+        assertThat(jdbc.queryForObject("select count(*) from libros", Integer.class)).isEqualTo(PAGINAS * POR_PAGINA);
+        // Todas las páginas comparten un autor: con un solo hilo escribiendo queda una sola fila
+        assertThat(jdbc.queryForObject("select count(*) from autores", Integer.class)).isEqualTo(PAGINAS + 1);
+        // Las descargas van en paralelo, acotadas por los hilos del espejo
+        assertThat(maximoEnCurso.get()).isBetween(2, TRABAJADORES);
+    }
+
+    @Test
+    void laSegundaCorridaSoloPideLasPaginasQueFaltan() {
+        fallar = true;
+        ResultadoEspejo primera = espejo.espejar();
+
+        assertThat(primera.paginasFallidas()).isEqualTo(1);
+        assertThat(primera.paginasGuardadas()).isEqualTo(PAGINAS - 1);
+        assertThat(paginasConPuntoDeControl()).doesNotContain(FALLA).hasSize(PAGINAS - 1);
+        // La página y su punto de control van en la misma transacción: sin punto de control no hay libros
+        assertThat(librosDeLaPagina(FALLA)).isZero();
+
+        fallar = false;
+        pedidos.clear();
+        ResultadoEspejo segunda = espejo.espejar();
+
+        assertThat(segunda.paginasGuardadas()).isEqualTo(1);
+        assertThat(segunda.paginasOmitidas()).isEqualTo(PAGINAS - 1);
+        // La página 1 se pide siempre para conocer el total; de las demás, sólo la que faltaba
+        assertThat(pedidos.keySet()).containsExactlyInAnyOrder(1, FALLA);
+        assertThat(pedidos.get(FALLA)).hasValue(1);
+        assertThat(paginasConPuntoDeControl()).hasSize(PAGINAS);
+        assertThat(librosDeLaPagina(FALLA)).isEqualTo(POR_PAGINA);
+        assertThat(jdbc.queryForObject("select count(*) from libros", Integer.class)).isEqualTo(PAGINAS * POR_PAGINA);
+    }
+
+    private List<Integer> paginasConPuntoDeControl() {
+        return jdbc.queryForList("select pagina from espejo_paginas order by pagina", Integer.class);
+    }
+
+    private int librosDeLaPagina(int pagina) {
+        return jdbc.queryForObject("select count(*) from libros where gutenberg_id between ? and ?", Integer.class,
+                (pagina - 1) * POR_PAGINA + 1, pagina * POR_PAGINA);
+    }
+
+    // ===== Gutendex local =====
+
+    private static HttpServer iniciarServidor() {
+        try {
+            HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            servidor.createContext("/books", EspejoCatalogoTest::responder);
+            servidor.setExecutor(Executors.newFixedThreadPool(TRABAJADORES * 2, r -> {
+                Thread t = new Thread(r, "gutendex-local");
+                t.setDaemon(true);
+                return t;
+            }));
+            servidor.start();
+            return servidor;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void responder(HttpExchange ex) throws IOException {
+        Matcher m = Pattern.compile("page=(\\d+)").matcher(String.valueOf(ex.getRequestURI().getQuery()));
+        int pagina = m.find() ? Integer.parseInt(m.group(1)) : 1;
+        pedidos.computeIfAbsent(pagina, p -> new AtomicInteger()).incrementAndGet();
+        maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+        try {
+            // Una demora corta para que las descargas en paralelo se superpongan
+            Thread.sleep(30);
+            if (fallar && pagina == FALLA) {
+                ex.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] cuerpo = pagina(pagina).getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(cuerpo);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            enCurso.decrementAndGet();
+            ex.close();
+        }
+    }
+
+    // Libros con ids consecutivos: la página p tiene del (p-1)*POR_PAGINA+1 al p*POR_PAGINA
+    private static String pagina(int pagina) {
+        StringBuilder sb = new StringBuilder("{\"count\":").append(PAGINAS * POR_PAGINA)
+                .append(",\"next\":null,\"previous\":null,\"results\":[");
+        for (int i = 1; i <= POR_PAGINA; i++) {
+            int id = (pagina - 1) * POR_PAGINA + i;
+            if (i > 1) sb.append(',');
+            sb.append("{\"id\":").append(id)
+              .append(",\"title\":\"Libro espejado ").append(id).append('"')
+              .append(",\"authors\":[{\"name\":\"Autor de la página ").append(pagina)
+              .append("\",\"birth_year\":1800,\"death_year\":1870},")
+              .append("{\"name\":\"Autor compartido\",\"birth_year\":1750,\"death_year\":1820}]")
+              .append(",\"languages\":[\"es\"],\"download_count\":").append(id * 10).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+}
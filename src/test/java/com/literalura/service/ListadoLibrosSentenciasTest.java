@@ -0,0 +1,47 @@
+package com.literalura.service;
+
+import com.literalura.PruebaConPostgres;
+import com.literalura.domain.Autor;
+import com.literalura.domain.Libro;
+import com.literalura.repository.LibroRepository;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listar libros con todos sus autores e idiomas no hace un SELECT por libro: el autor principal viene en el
+ * JOIN del listado y las colecciones se cargan en lotes de 50 ids.
+ */
+class ListadoLibrosSentenciasTest extends PruebaConPostgres {
+
+    @Autowired
+    LibroRepository libroRepository;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Test
+    void listarMilLibrosConAutoresEIdiomasUsaSentenciasPorLote() {
+        sembrarLibros(1000, "mar");
+
+        Statistics stats = estadisticas();
+        int recorridos = tx.execute(status -> {
+            List<Libro> libros = libroRepository.findAll();
+            for (Libro l : libros) {
+                l.getAutor().getNombre();
+                for (Autor a : l.getAutores()) a.getNombre();
+                l.getIdiomas().size();
+            }
+            return libros.size();
+        });
+
+        assertThat(recorridos).isEqualTo(1000);
+        // 1 listado + 20 lotes de autores + 20 lotes de idiomas, sin importar cuántos autores distintos haya
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1 + 2 * (1000 / 50));
+    }
+}
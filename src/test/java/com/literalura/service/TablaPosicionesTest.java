@@ -0,0 +1,76 @@
+package com.literalura.service;
+
+import com.literalura.domain.LibroResumen;
+import com.literalura.repository.LibroRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/** Los afterCommit llegan en cualquier orden: un cambio más viejo que lo ya visto no pisa la tabla. */
+class TablaPosicionesTest {
+
+    private final LibroRepository repositorio = mock(LibroRepository.class);
+
+    @Test
+    void cambioViejoNoReingresaUnLibroQueSalioDelTop() {
+        TablaPosiciones tabla = new TablaPosiciones(repositorio, 2);
+        tabla.reconstruirTodo();
+
+        long viejo = tabla.siguienteVersion();
+        long nuevo = tabla.siguienteVersion();
+        tabla.aplicar(List.of(cambio(libro(1, 5), nuevo)));
+        // Dos libros con más descargas lo sacan del top de 2
+        tabla.aplicar(List.of(cambio(libro(2, 100), tabla.siguienteVersion())));
+        tabla.aplicar(List.of(cambio(libro(3, 200), tabla.siguienteVersion())));
+
+        // Llega tarde el commit anterior del libro 1, con descargas que ya no son las de la DB
+        tabla.aplicar(List.of(cambio(libro(1, 1000), viejo)));
+
+        assertThat(tabla.topGlobal(2)).contains(List.of(libro(3, 200), libro(2, 100)));
+        assertThat(tabla.topIdioma("es", 2)).contains(List.of(libro(3, 200), libro(2, 100)));
+    }
+
+    @Test
+    void cambioViejoNoPisaLoLeidoAlReconstruir() {
+        when(repositorio.topResumen(any())).thenReturn(List.of(), List.of(libro(1, 50)));
+        TablaPosiciones tabla = new TablaPosiciones(repositorio, 10);
+        tabla.reconstruirTodo();
+
+        long viejo = tabla.siguienteVersion();
+        long nuevo = tabla.siguienteVersion();
+        // Las dos transacciones confirmaron (la DB ya tiene 50) pero ningún afterCommit corrió todavía
+        tabla.reconstruirTodo();
+
+        tabla.aplicar(List.of(cambio(libro(1, 10), viejo)));
+        assertThat(tabla.topGlobal(10)).contains(List.of(libro(1, 50)));
+
+        tabla.aplicar(List.of(cambio(libro(1, 50), nuevo)));
+        assertThat(tabla.topGlobal(10)).contains(List.of(libro(1, 50)));
+    }
+
+    @Test
+    void cambiosPosterioresALaReconstruccionNoVuelvenALaDb() {
+        when(repositorio.topResumen(any())).thenReturn(List.of(libro(1, 50)));
+        TablaPosiciones tabla = new TablaPosiciones(repositorio, 10);
+        tabla.reconstruirTodo();
+
+        // Un rollback libera su versión: no deja la tabla esperando un cambio que no va a llegar
+        tabla.descartarVersion(tabla.siguienteVersion());
+        tabla.aplicar(List.of(cambio(libro(2, 70), tabla.siguienteVersion())));
+
+        assertThat(tabla.topGlobal(10)).contains(List.of(libro(2, 70), libro(1, 50)));
+        verify(repositorio, times(1)).topResumen(any());
+    }
+
+    private static LibroResumen libro(long id, int descargas) {
+        return new LibroResumen(id, "Libro " + id, "Autor", "es", descargas);
+    }
+
+    private static CacheLecturas.CambioLibro cambio(LibroResumen libro, long version) {
+        return new CacheLecturas.CambioLibro(libro, false, "es", null, version);
+    }
+}